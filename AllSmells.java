@@ -34,6 +34,50 @@ class UserData {
     public void setAge(int age) { this.age = age; }
 }
 
+// UserData avec city / country stockes comme codes du ValueDictionary partage
+class EncodedUserData {
+    private int id;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private String address;
+    private int cityCode;
+    private int countryCode;
+    private int age;
+
+    public static EncodedUserData of(UserData u) {
+        EncodedUserData e = new EncodedUserData();
+        e.id = u.getId();
+        e.firstName = u.getFirstName();
+        e.lastName = u.getLastName();
+        e.email = u.getEmail();
+        e.address = u.getAddress();
+        e.setCity(u.getCity());
+        e.setCountry(u.getCountry());
+        e.age = u.getAge();
+        return e;
+    }
+
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+    public String getFirstName() { return firstName; }
+    public void setFirstName(String firstName) { this.firstName = firstName; }
+    public String getLastName() { return lastName; }
+    public void setLastName(String lastName) { this.lastName = lastName; }
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+    public String getAddress() { return address; }
+    public void setAddress(String address) { this.address = address; }
+    public String getCity() { return ValueDictionary.CITIES.decode(cityCode); }
+    public void setCity(String city) { this.cityCode = ValueDictionary.CITIES.encode(city); }
+    public int getCityCode() { return cityCode; }
+    public String getCountry() { return ValueDictionary.COUNTRIES.decode(countryCode); }
+    public void setCountry(String country) { this.countryCode = ValueDictionary.COUNTRIES.encode(country); }
+    public int getCountryCode() { return countryCode; }
+    public int getAge() { return age; }
+    public void setAge(int age) { this.age = age; }
+}
+
 // =====================================================================
 //  FEATURE ENVY  -> formatShippingLabel lit toute la donnee de Address
 // =====================================================================
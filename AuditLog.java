@@ -0,0 +1,31 @@
+// File: AuditLog.java
+// Purpose: Preallocated ring of structured audit events for HotelManager.
+//
+// Replaces the ever-growing list of log strings. An event is a kind, a long
+// (booking id, count) and a reference to a string the caller already holds
+// (customer name, log line). Recording does not allocate and takes no lock (see
+// EventRing). Text is built in the old log-line format only when the ops report
+// reads the events back.
+
+public class AuditLog extends EventRing<AuditLog.Kind> {
+
+    public enum Kind {
+        BOOKING_CREATED, BOOKING_CANCELLED, BOOKINGS_IMPORTED, ERROR_LINE, WARN_LINE, IO_PROBLEM
+    }
+
+    public AuditLog(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    protected String render(Kind kind, long value, String text) {
+        switch (kind) {
+            case BOOKING_CREATED: return "Created booking for " + text;
+            case BOOKING_CANCELLED: return "Cancelled booking " + value;
+            case BOOKINGS_IMPORTED: return "Imported " + value + " bookings";
+            case ERROR_LINE: return "Found error line: " + text;
+            case WARN_LINE: return "Found warn line: " + text;
+            default: return "IO problem: " + text;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+// File: BatchRepricer.java
+// Purpose: Reprice many bookings at once (e.g. after a VAT or coupon change).
+//
+// Bookings are split into index ranges on a fork/join pool, and each range is
+// priced with one pinned set of rules. Every result lands in its input slot, so the
+// output is in input order and equals the sequential loop bit for bit: each
+// booking is priced on its own, with no cross-booking arithmetic.
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class BatchRepricer {
+
+    private static final int LEAF_SIZE = 2048;
+
+    private static final class RepriceTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final SmellyHotel.BookingData[] bookings;
+        private final double[] out;
+        private final PricingEngine engine;
+        private final boolean writeBack;
+        private final int from, to;
+
+        RepriceTask(SmellyHotel.BookingData[] bookings, double[] out, PricingEngine engine,
+                    boolean writeBack, int from, int to) {
+            this.bookings = bookings;
+            this.out = out;
+            this.engine = engine;
+            this.writeBack = writeBack;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                priceRange(bookings, out, engine, writeBack, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RepriceTask(bookings, out, engine, writeBack, from, mid),
+                      new RepriceTask(bookings, out, engine, writeBack, mid, to));
+        }
+    }
+
+    // Final amounts in input order; with writeBack each booking's finalAmount is set too.
+    public static double[] reprice(Collection<SmellyHotel.BookingData> bookings, PricingEngine engine,
+                                   boolean writeBack) {
+        return reprice(bookings, engine, writeBack, ForkJoinPool.commonPool());
+    }
+
+    public static double[] reprice(Collection<SmellyHotel.BookingData> bookings, PricingEngine engine,
+                                   boolean writeBack, ForkJoinPool pool) {
+        SmellyHotel.BookingData[] arr = bookings.toArray(new SmellyHotel.BookingData[0]);
+        double[] out = new double[arr.length];
+        pool.invoke(new RepriceTask(arr, out, engine.pinned(), writeBack, 0, arr.length));
+        return out;
+    }
+
+    // Reprices everything in the store and writes the amounts back.
+    public static double[] repriceStore(BookingStore store, PricingEngine engine) {
+        List<SmellyHotel.BookingData> all = new ArrayList<>(store.size());
+        store.forEach((id, b) -> all.add(b));
+        return reprice(all, engine, true);
+    }
+
+    // Single-threaded reference path.
+    public static double[] repriceSequential(Collection<SmellyHotel.BookingData> bookings, PricingEngine engine,
+                                             boolean writeBack) {
+        SmellyHotel.BookingData[] arr = bookings.toArray(new SmellyHotel.BookingData[0]);
+        double[] out = new double[arr.length];
+        priceRange(arr, out, engine.pinned(), writeBack, 0, arr.length);
+        return out;
+    }
+
+    private static void priceRange(SmellyHotel.BookingData[] bookings, double[] out, PricingEngine engine,
+                                   boolean writeBack, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double amount = engine.quote(bookings[i]);
+            out[i] = amount;
+            if (writeBack) bookings[i].setFinalAmount(amount);
+        }
+    }
+}
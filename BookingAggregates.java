@@ -0,0 +1,80 @@
+// File: BookingAggregates.java
+// Purpose: Live revenue / extras / room-type totals for HotelManager.
+//
+// Updated on every booking insert and removal with striped adders, so concurrent
+// createBooking calls do not contend and the ops report reads totals in O(1)
+// (O(room types) for the per-room counts).
+// A booking's revenue is computed once, when it is added, and kept on the booking;
+// removing it subtracts that same amount. Reloading the pricing rules in between
+// therefore cannot make the total drift.
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+public class BookingAggregates {
+
+    private final ToDoubleFunction<SmellyHotel.BookingData> revenueOf;
+    private final LongAdder bookings = new LongAdder();
+    private final LongAdder breakfasts = new LongAdder();
+    private final LongAdder pickups = new LongAdder();
+    private final DoubleAdder revenue = new DoubleAdder();
+    private final ConcurrentHashMap<String, LongAdder> rooms = new ConcurrentHashMap<>();
+
+    // revenueOf decides what a single booking contributes to the revenue total when added.
+    public BookingAggregates(ToDoubleFunction<SmellyHotel.BookingData> revenueOf) {
+        this.revenueOf = revenueOf;
+    }
+
+    public void added(SmellyHotel.BookingData b) {
+        apply(b, 1);
+    }
+
+    public void removed(SmellyHotel.BookingData b) {
+        apply(b, -1);
+    }
+
+    // Convenience for store updates that may have replaced an older copy.
+    public void replaced(SmellyHotel.BookingData old, SmellyHotel.BookingData b) {
+        if (old != null) removed(old);
+        if (b != null) added(b);
+    }
+
+    private void apply(SmellyHotel.BookingData b, int sign) {
+        bookings.add(sign);
+        if (b.isBreakfast()) breakfasts.add(sign);
+        if (b.isAirportPickup()) pickups.add(sign);
+        if (sign > 0) {
+            double r = revenueOf.applyAsDouble(b);
+            b.setReportedRevenue(r);
+            revenue.add(r);
+        } else {
+            revenue.add(-b.getReportedRevenue());
+        }
+        String room = b.getRoomType() == null ? "null" : b.getRoomType();
+        rooms.computeIfAbsent(room, k -> new LongAdder()).add(sign);
+    }
+
+    public long bookings() { return bookings.sum(); }
+    public long breakfasts() { return breakfasts.sum(); }
+    public long pickups() { return pickups.sum(); }
+    public double revenue() { return revenue.sum(); }
+
+    public long roomCount(String roomType) {
+        LongAdder a = rooms.get(roomType);
+        return a == null ? 0 : a.sum();
+    }
+
+    // Point-in-time copy of the per-room counts, sorted by room type.
+    public Map<String, Long> roomCounts() {
+        Map<String, Long> out = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> e : rooms.entrySet()) {
+            long n = e.getValue().sum();
+            if (n != 0) out.put(e.getKey(), n);
+        }
+        return out;
+    }
+}
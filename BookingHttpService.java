@@ -0,0 +1,314 @@
+// File: BookingHttpService.java
+// Purpose: Embedded HTTP front door for HotelManager (JDK com.sun.net.httpserver).
+//
+//   POST /bookings   create a booking (form or query parameters, createBooking names)
+//   GET  /quote      price a stay through the quote cache
+//   GET  /report     stream the ops report; offset/limit page the cache dump
+//   GET  /metrics    Metrics scrape in Prometheus text format (bypasses admission control)
+//
+// Each request runs on its own virtual thread when the JDK has them (looked up
+// reflectively, so the file still compiles and runs on older JDKs with a cached
+// pool). At most maxInFlight requests run at once; any extra request gets 503 at
+// once instead of queueing. Bookings get 503 as soon as the store holds
+// maxBookings, or when the journal cannot persist them. Bad input is a 400 and an
+// unexpected failure a 500. A report that fails after its status line went out
+// is cut off mid-body (the connection is dropped), so it never looks complete.
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class BookingHttpService implements Closeable {
+
+    private static final int MAX_BODY = 64 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final SmellyHotel.HotelManager manager;
+    private final String opsLogPath;
+    private final int maxBookings;
+    private final Semaphore inFlight;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private interface Handler {
+        void handle(HttpExchange ex, Map<String, String> params) throws IOException;
+    }
+
+    // Bad client input; answered with 400.
+    private static final class BadRequest extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BadRequest(String message) {
+            super(message);
+        }
+    }
+
+    public BookingHttpService(SmellyHotel.HotelManager manager, InetSocketAddress address, String opsLogPath,
+                              int maxInFlight, int maxBookings) throws IOException {
+        if (maxInFlight <= 0) throw new IllegalArgumentException("maxInFlight must be > 0");
+        this.manager = manager;
+        this.opsLogPath = opsLogPath;
+        this.maxBookings = maxBookings;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.executor = newRequestExecutor();
+        this.server = HttpServer.create(address, 1024);
+        server.setExecutor(executor);
+        server.createContext("/bookings", ex -> admit(ex, "POST", this::createBooking));
+        server.createContext("/quote", ex -> admit(ex, "GET", this::quote));
+        server.createContext("/report", ex -> admit(ex, "GET", this::report));
+        server.createContext("/metrics", this::metrics);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // One virtual thread per task on JDK 21+, a cached platform pool otherwise.
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "booking-http");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    // Admission control, method check and error mapping shared by all endpoints.
+    private void admit(HttpExchange ex, String method, Handler handler) throws IOException {
+        boolean aborted = false;
+        try {
+            if (!inFlight.tryAcquire()) {
+                ex.getResponseHeaders().set("Retry-After", "1");
+                send(ex, 503, "{\"error\":\"overloaded\"}");
+                return;
+            }
+            try {
+                if (!method.equals(ex.getRequestMethod())) {
+                    ex.getResponseHeaders().set("Allow", method);
+                    send(ex, 405, "{\"error\":\"method not allowed\"}");
+                    return;
+                }
+                handler.handle(ex, params(ex));
+            } catch (IOException | RuntimeException e) {
+                if (ex.getResponseCode() != -1) {
+                    // headers are out: closing would end the body normally, so leave the
+                    // exchange open and let the server drop the connection instead
+                    aborted = true;
+                    throw e;
+                }
+                if (e instanceof IOException) throw (IOException) e;
+                RuntimeException r = (RuntimeException) e;
+                int status = status(r);
+                send(ex, status, error(status == 503 ? "storage unavailable"
+                        : status == 500 ? "internal error" : r.getMessage()));
+            } finally {
+                inFlight.release();
+            }
+        } finally {
+            if (!aborted) ex.close();
+        }
+    }
+
+    private static int status(RuntimeException e) {
+        if (e instanceof BadRequest || e instanceof IllegalArgumentException) return 400;
+        if (e instanceof IllegalStateException) return 409;
+        if (e instanceof UncheckedIOException) return 503;
+        return 500;
+    }
+
+    private void createBooking(HttpExchange ex, Map<String, String> p) throws IOException {
+        if (manager.bookingCount() >= maxBookings) {
+            ex.getResponseHeaders().set("Retry-After", "5");
+            send(ex, 503, "{\"error\":\"booking store saturated\"}");
+            return;
+        }
+        SmellyHotel.BookingData in = new SmellyHotel.BookingData();
+        in.setCustomerName(required(p, "customerName"));
+        in.setRoomType(required(p, "roomType"));
+        in.setNights(intParam(p, "nights"));
+        in.setBasePrice(doubleParam(p, "basePrice"));
+        in.setTaxRate(doubleParam(p, "taxRate"));
+        String problem = BookingIngestor.validate(in); // same rules as bulk imports
+        if (problem != null) throw new BadRequest(problem);
+        SmellyHotel.BookingData b = manager.createBooking(
+                in.getCustomerName(),
+                p.getOrDefault("phone", ""),
+                p.getOrDefault("address", ""),
+                in.getRoomType(),
+                in.getNights(),
+                boolParam(p, "breakfast"),
+                boolParam(p, "airportPickup"),
+                in.getBasePrice(),
+                in.getTaxRate(),
+                p.getOrDefault("couponCode", ""));
+        // the price fixed at booking, with the coupon use it was actually granted
+        send(ex, 201, "{\"id\":" + b.getId() + ",\"finalAmount\":" + b.getFinalAmount() + "}");
+    }
+
+    private void quote(HttpExchange ex, Map<String, String> p) throws IOException {
+        SmellyHotel.BookingData in = new SmellyHotel.BookingData();
+        in.setRoomType(required(p, "roomType"));
+        in.setNights(intParam(p, "nights"));
+        in.setBasePrice(doubleParam(p, "basePrice"));
+        in.setTaxRate(doubleParam(p, "taxRate"));
+        String problem = BookingIngestor.validatePricing(in); // as /bookings, minus the customer
+        if (problem != null) throw new BadRequest(problem);
+        double amount = manager.quote(in.getRoomType(), in.getNights(), in.getBasePrice(),
+                boolParam(p, "breakfast"), boolParam(p, "airportPickup"), in.getTaxRate(),
+                p.getOrDefault("couponCode", ""));
+        send(ex, 200, "{\"quote\":" + amount + "}");
+    }
+
+    private void report(HttpExchange ex, Map<String, String> p) throws IOException {
+        long offset = p.containsKey("offset") ? longParam(p, "offset") : 0;
+        long limit = p.containsKey("limit") ? longParam(p, "limit") : 1000;
+        if (offset < 0 || limit < 0) throw new BadRequest("offset and limit must be >= 0");
+        boolean incremental = !"false".equals(p.get("incremental"));
+        ex.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        ex.sendResponseHeaders(200, 0); // chunked: the report is streamed as it is written
+        Writer w = new OutputStreamWriter(ex.getResponseBody(), StandardCharsets.UTF_8);
+        manager.writeOperationsReport(w, opsLogPath, incremental, offset, limit);
+    }
+
+    // Answered even when the service is saturated, so overload stays visible.
+    private void metrics(HttpExchange ex) throws IOException {
+        try (ex) {
+            StringBuilder sb = new StringBuilder(4096);
+            Metrics.writeText(sb);
+            byte[] body = sb.toString().getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            ex.sendResponseHeaders(200, body.length);
+            ex.getResponseBody().write(body);
+        }
+    }
+
+    // ---------------------------------------------------------------- helpers
+
+    private static Map<String, String> params(HttpExchange ex) throws IOException {
+        Map<String, String> out = new HashMap<>();
+        parseForm(ex.getRequestURI().getRawQuery(), out);
+        String type = ex.getRequestHeaders().getFirst("Content-Type");
+        if ("POST".equals(ex.getRequestMethod())
+                && (type == null || type.startsWith("application/x-www-form-urlencoded"))) {
+            byte[] body = ex.getRequestBody().readNBytes(MAX_BODY + 1);
+            if (body.length > MAX_BODY) throw new BadRequest("body too large");
+            parseForm(new String(body, StandardCharsets.UTF_8), out);
+        }
+        return out;
+    }
+
+    private static void parseForm(String raw, Map<String, String> out) {
+        if (raw == null || raw.isEmpty()) return;
+        for (String pair : raw.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String k = eq < 0 ? pair : pair.substring(0, eq);
+            String v = eq < 0 ? "" : pair.substring(eq + 1);
+            try {
+                out.put(URLDecoder.decode(k, StandardCharsets.UTF_8), URLDecoder.decode(v, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequest("malformed parameter: " + k);
+            }
+        }
+    }
+
+    private static String required(Map<String, String> p, String name) {
+        String v = p.get(name);
+        if (v == null || v.isBlank()) throw new BadRequest("missing " + name);
+        return v;
+    }
+
+    private static int intParam(Map<String, String> p, String name) {
+        try {
+            return Integer.parseInt(required(p, name));
+        } catch (NumberFormatException e) {
+            throw new BadRequest(name + " is not a number");
+        }
+    }
+
+    private static long longParam(Map<String, String> p, String name) {
+        try {
+            return Long.parseLong(required(p, name));
+        } catch (NumberFormatException e) {
+            throw new BadRequest(name + " is not a number");
+        }
+    }
+
+    private static double doubleParam(Map<String, String> p, String name) {
+        try {
+            return Double.parseDouble(required(p, name));
+        } catch (NumberFormatException e) {
+            throw new BadRequest(name + " is not a number");
+        }
+    }
+
+    private static boolean boolParam(Map<String, String> p, String name) {
+        return Boolean.parseBoolean(p.get(name));
+    }
+
+    // {"error":"..."} with the message as a JSON string: quotes, backslashes and
+    // U+0000..U+001F are escaped (messages may echo client input).
+    static String error(String message) {
+        StringBuilder sb = new StringBuilder(message == null ? 12 : message.length() + 16).append("{\"error\":\"");
+        if (message != null) {
+            for (int i = 0; i < message.length(); i++) {
+                char c = message.charAt(i);
+                switch (c) {
+                    case '"': sb.append("\\\""); break;
+                    case '\\': sb.append("\\\\"); break;
+                    case '\n': sb.append("\\n"); break;
+                    case '\r': sb.append("\\r"); break;
+                    case '\t': sb.append("\\t"); break;
+                    default:
+                        if (c < 0x20) sb.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                        else sb.append(c);
+                }
+            }
+        }
+        return sb.append("\"}").toString();
+    }
+
+    private static void send(HttpExchange ex, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(status, body.length);
+        ex.getResponseBody().write(body);
+    }
+
+    // Demo: java BookingHttpService [port] [opsLog]
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        String log = args.length > 1 ? args[1] : "README.md";
+        BookingHttpService svc = new BookingHttpService(new SmellyHotel.HotelManager(),
+                new InetSocketAddress(port), log, 256, 1_000_000);
+        svc.start();
+        System.out.println("Booking service on port " + svc.port());
+    }
+}
@@ -0,0 +1,367 @@
+// File: BookingIngestor.java
+// Purpose: Bulk import of bookings (e.g. OTA channel files) into HotelManager.
+//
+// Three stages run on their own threads and hand work over bounded queues:
+//   parse    - reads CSV lines from the source
+//   validate - turns fields into BookingData, rejecting bad records
+//   insert   - groups valid bookings and calls HotelManager.insertBatch
+// A full queue blocks the stage before it, so memory stays bounded no matter how
+// large the input is. A stage passes END on only once its input is used up. A
+// stage that fails just ends; ingest() then cancels the others (interrupting their
+// blocked put/take) and throws that first error.
+//
+// CSV columns follow createBooking: customerName, phone, address, roomType, nights,
+// breakfast, airportPickup, basePrice, taxRate, couponCode. Fields may be quoted
+// ("1 Rue A, Lille"). A first line starting with "customerName" is skipped as a header.
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BookingIngestor {
+
+    private static final int COLUMNS = 10;
+    private static final int MAX_KEPT_REJECTS = 1000;
+
+    private final SmellyHotel.HotelManager manager;
+    private final int queueCapacity;
+    private final int batchSize;
+
+    public static final class Rejected {
+        public final long lineNo;
+        public final String reason;
+
+        Rejected(long lineNo, String reason) {
+            this.lineNo = lineNo;
+            this.reason = reason;
+        }
+
+        @Override
+        public String toString() { return "line " + lineNo + ": " + reason; }
+    }
+
+    public static final class StageStats {
+        public final String stage;
+        public final long records;
+        public final long busyNanos;
+
+        StageStats(String stage, long records, long busyNanos) {
+            this.stage = stage;
+            this.records = records;
+            this.busyNanos = busyNanos;
+        }
+
+        public double recordsPerSecond() {
+            return busyNanos == 0 ? 0 : records * 1e9 / busyNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d records, %.0f rec/s", stage, records, recordsPerSecond());
+        }
+    }
+
+    public static final class IngestReport {
+        public final long inserted;
+        public final long rejectedCount;
+        public final List<Rejected> rejected; // first MAX_KEPT_REJECTS only
+        public final List<StageStats> stages;
+        public final long elapsedNanos;
+
+        IngestReport(long inserted, long rejectedCount, List<Rejected> rejected,
+                     List<StageStats> stages, long elapsedNanos) {
+            this.inserted = inserted;
+            this.rejectedCount = rejectedCount;
+            this.rejected = rejected;
+            this.stages = stages;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("inserted=").append(inserted).append(" rejected=").append(rejectedCount)
+              .append(" elapsedMs=").append(elapsedNanos / 1_000_000).append("\n");
+            for (StageStats s : stages) sb.append("  ").append(s).append("\n");
+            return sb.toString();
+        }
+    }
+
+    // Queue items; END tells the next stage that the input is exhausted.
+    private static final class Row {
+        final long lineNo;
+        final String[] fields;
+
+        Row(long lineNo, String[] fields) {
+            this.lineNo = lineNo;
+            this.fields = fields;
+        }
+    }
+
+    private static final class Parsed {
+        final long lineNo;
+        final SmellyHotel.BookingData booking;
+
+        Parsed(long lineNo, SmellyHotel.BookingData booking) {
+            this.lineNo = lineNo;
+            this.booking = booking;
+        }
+    }
+
+    private static final Row END_ROW = new Row(-1, null);
+    private static final Parsed END_PARSED = new Parsed(-1, null);
+
+    // Shared by the validate and insert stages.
+    private static final class RejectLog {
+        final AtomicLong count = new AtomicLong();
+        final List<Rejected> kept = Collections.synchronizedList(new ArrayList<>());
+
+        void add(long lineNo, String reason) {
+            count.incrementAndGet();
+            if (kept.size() < MAX_KEPT_REJECTS) kept.add(new Rejected(lineNo, reason));
+        }
+    }
+
+    public BookingIngestor(SmellyHotel.HotelManager manager) {
+        this(manager, 4096, 512);
+    }
+
+    public BookingIngestor(SmellyHotel.HotelManager manager, int queueCapacity, int batchSize) {
+        if (queueCapacity <= 0 || batchSize <= 0) throw new IllegalArgumentException("sizes must be > 0");
+        this.manager = manager;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+    }
+
+    public IngestReport ingest(Path csv) throws IOException {
+        try (Reader r = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            return ingest(r);
+        }
+    }
+
+    public IngestReport ingest(InputStream in) throws IOException {
+        return ingest(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    public IngestReport ingest(Reader source) throws IOException {
+        long start = System.nanoTime();
+        BlockingQueue<Row> rows = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Parsed> valid = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicLong[] counts = {new AtomicLong(), new AtomicLong(), new AtomicLong()};
+        AtomicLong[] busy = {new AtomicLong(), new AtomicLong(), new AtomicLong()};
+        RejectLog rejects = new RejectLog();
+
+        ExecutorService pool = Executors.newFixedThreadPool(3, r -> {
+            Thread t = new Thread(r, "booking-ingest");
+            t.setDaemon(true);
+            return t;
+        });
+        CompletionService<Void> running = new ExecutorCompletionService<>(pool);
+        try {
+            running.submit(() -> {
+                parseStage(source, rows, counts[0], busy[0]);
+                return null;
+            });
+            running.submit(() -> {
+                validateStage(rows, valid, counts[1], busy[1], rejects);
+                return null;
+            });
+            running.submit(() -> {
+                insertStage(valid, counts[2], busy[2], rejects);
+                return null;
+            });
+            // whichever stage finishes first is checked first, so a failing
+            // downstream stage cannot leave us waiting on a blocked upstream one
+            for (int i = 0; i < 3; i++) awaitNext(running, pool);
+        } finally {
+            pool.shutdownNow();
+        }
+        List<StageStats> stages = Arrays.asList(
+                new StageStats("parse", counts[0].get(), busy[0].get()),
+                new StageStats("validate", counts[1].get(), busy[1].get()),
+                new StageStats("insert", counts[2].get(), busy[2].get()));
+        return new IngestReport(counts[2].get(), rejects.count.get(), new ArrayList<>(rejects.kept),
+                stages, System.nanoTime() - start);
+    }
+
+    // Waits for the next stage to finish; if it failed, stops the others and rethrows its error.
+    private static void awaitNext(CompletionService<Void> running, ExecutorService pool) throws IOException {
+        try {
+            running.take().get();
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Ingestion interrupted");
+        } catch (ExecutionException e) {
+            pool.shutdownNow();
+            Throwable c = e.getCause();
+            if (c instanceof IOException) throw (IOException) c;
+            if (c instanceof RuntimeException) throw (RuntimeException) c;
+            throw new IOException(c);
+        }
+    }
+
+    private static void parseStage(Reader source, BlockingQueue<Row> out, AtomicLong count, AtomicLong busy)
+            throws IOException, InterruptedException {
+        BufferedReader br = source instanceof BufferedReader ? (BufferedReader) source : new BufferedReader(source);
+        long lineNo = 0;
+        while (true) {
+            long t0 = System.nanoTime();
+            String line = br.readLine();
+            if (line == null) break;
+            lineNo++;
+            if (line.isBlank() || (lineNo == 1 && line.startsWith("customerName"))) {
+                busy.addAndGet(System.nanoTime() - t0);
+                continue;
+            }
+            Row row = new Row(lineNo, splitCsv(line));
+            busy.addAndGet(System.nanoTime() - t0);
+            count.incrementAndGet();
+            out.put(row);
+        }
+        out.put(END_ROW); // not on failure: a put here could block or hide the error
+    }
+
+    private static void validateStage(BlockingQueue<Row> in, BlockingQueue<Parsed> out,
+                                      AtomicLong count, AtomicLong busy, RejectLog rejects)
+            throws InterruptedException {
+        while (true) {
+            Row row = in.take();
+            if (row == END_ROW) break;
+            long t0 = System.nanoTime();
+            SmellyHotel.BookingData b = null;
+            String reason;
+            try {
+                b = toBooking(row.fields);
+                reason = validate(b);
+            } catch (IllegalArgumentException e) {
+                reason = e.getMessage();
+            }
+            busy.addAndGet(System.nanoTime() - t0);
+            if (reason != null) {
+                rejects.add(row.lineNo, reason);
+                continue;
+            }
+            count.incrementAndGet();
+            out.put(new Parsed(row.lineNo, b));
+        }
+        out.put(END_PARSED);
+    }
+
+    private void insertStage(BlockingQueue<Parsed> in, AtomicLong count, AtomicLong busy, RejectLog rejects)
+            throws InterruptedException {
+        List<SmellyHotel.BookingData> batch = new ArrayList<>(batchSize);
+        Map<SmellyHotel.BookingData, Long> lines = new IdentityHashMap<>();
+        List<Parsed> drained = new ArrayList<>(batchSize);
+        boolean done = false;
+        while (!done) {
+            drained.add(in.take());
+            in.drainTo(drained, batchSize - 1);
+            for (Parsed p : drained) {
+                if (p == END_PARSED) { done = true; break; }
+                batch.add(p.booking);
+                lines.put(p.booking, p.lineNo);
+            }
+            drained.clear();
+            if (batch.size() >= batchSize || (done && !batch.isEmpty())) {
+                long t0 = System.nanoTime();
+                List<SmellyHotel.BookingData> full = manager.insertBatch(batch);
+                busy.addAndGet(System.nanoTime() - t0);
+                count.addAndGet(batch.size() - full.size());
+                for (SmellyHotel.BookingData b : full) {
+                    rejects.add(lines.get(b), "no " + b.getRoomType() + " available");
+                }
+                batch = new ArrayList<>(batchSize); // the manager keeps the inserted objects
+                lines.clear();
+            }
+        }
+    }
+
+    static SmellyHotel.BookingData toBooking(String[] f) {
+        if (f.length < COLUMNS - 1 || f.length > COLUMNS) {
+            throw new IllegalArgumentException("expected " + COLUMNS + " columns, got " + f.length);
+        }
+        SmellyHotel.BookingData b = new SmellyHotel.BookingData();
+        b.setCustomerName(f[0].trim());
+        b.setPhone(f[1].trim());
+        b.setAddress(f[2].trim());
+        b.setRoomType(f[3].trim());
+        b.setNights(parseInt(f[4], "nights"));
+        b.setBreakfast(parseBoolean(f[5], "breakfast"));
+        b.setAirportPickup(parseBoolean(f[6], "airportPickup"));
+        b.setBasePrice(parseDouble(f[7], "basePrice"));
+        b.setTaxRate(parseDouble(f[8], "taxRate"));
+        b.setCouponCode(f.length == COLUMNS ? f[9].trim() : "");
+        return b;
+    }
+
+    // null when the booking is acceptable, otherwise the reason it is not
+    static String validate(SmellyHotel.BookingData b) {
+        if (b.getCustomerName().isEmpty()) return "customerName is empty";
+        return validatePricing(b);
+    }
+
+    // The checks on what a price is computed from (room type, nights, base price,
+    // tax rate); also used for quotes, which have no customer.
+    static String validatePricing(SmellyHotel.BookingData b) {
+        if (b.getRoomType().isEmpty()) return "roomType is empty";
+        if (b.getNights() <= 0) return "nights must be > 0";
+        if (!(b.getBasePrice() >= 0) || Double.isInfinite(b.getBasePrice())) return "basePrice must be >= 0";
+        if (!(b.getTaxRate() >= 0 && b.getTaxRate() <= 1)) return "taxRate must be within [0, 1]";
+        return null;
+    }
+
+    private static int parseInt(String s, String field) {
+        try {
+            return Integer.parseInt(s.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " is not a number: " + s);
+        }
+    }
+
+    private static double parseDouble(String s, String field) {
+        try {
+            return Double.parseDouble(s.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " is not a number: " + s);
+        }
+    }
+
+    private static boolean parseBoolean(String s, String field) {
+        String v = s.trim();
+        if (v.equalsIgnoreCase("true") || v.equals("1") || v.equalsIgnoreCase("yes")) return true;
+        if (v.equalsIgnoreCase("false") || v.equals("0") || v.equalsIgnoreCase("no") || v.isEmpty()) return false;
+        throw new IllegalArgumentException(field + " is not a boolean: " + s);
+    }
+
+    // Comma-separated fields; double quotes group a field and "" is a literal quote.
+    static String[] splitCsv(String line) {
+        List<String> out = new ArrayList<>(COLUMNS);
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') { cur.append('"'); i++; }
+                    else quoted = false;
+                } else {
+                    cur.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                out.add(cur.toString());
+                cur.setLength(0);
+            } else {
+                cur.append(c);
+            }
+        }
+        out.add(cur.toString());
+        return out.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,490 @@
+// File: BookingJournal.java
+// Purpose: Append-only binary write-ahead journal for HotelManager bookings.
+//
+// Layout of the journal directory:
+//   journal-<segment>.log  append-only segments of records
+//   snapshot.bin           compacted image of the store, plus the first segment it does not cover
+//
+// Every record is [int length][int crc32][byte type][payload]. Writers hand their
+// record to a single committer thread, which writes everything queued so far and
+// issues one force() for the whole batch (group commit). Replay stops at the first
+// torn or corrupt record and truncates the segment there.
+//
+// Every record gets a sequence number, stamped on the booking it stores or removes.
+// A snapshot keeps exactly the bookings whose PUT is in a segment it replaces and
+// whose REMOVE is not. A booking added to the store but not journaled yet (and
+// possibly rolled back) is left to the newer segments.
+// Compaction runs beside the log: if it fails, appends carry on and the next
+// commit past the threshold tries again. Only a failed log write fails appends.
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32;
+
+public class BookingJournal implements Closeable {
+
+    static final byte PUT = 1;        // without finalAmount; still read back
+    static final byte REMOVE = 2;
+    static final byte PUT_PRICED = 3; // PUT followed by finalAmount and the granted coupon factor
+
+    private static final int HEADER = 8;
+    private static final int MAX_RECORD = 1 << 20;
+    private static final String SNAPSHOT = "snapshot.bin";
+    private static final int SNAPSHOT_MAGIC = 0x48534E50; // "HSNP"
+    private static final long REPLAYED = 1; // sequence of every record read back by replay
+
+    private final Path dir;
+    private final Object lock = new Object();   // guards the pending batch and sequence numbers
+    private final Object ioLock = new Object(); // guards the active segment channel
+    private final Object compactLock = new Object(); // one compaction at a time
+    private final Thread committer;
+
+    private ArrayList<ByteBuffer> pending = new ArrayList<>();
+    private long appendedSeq = REPLAYED;
+    private long durableSeq = REPLAYED;
+    private IOException failure; // the log itself failed: every later append fails
+    private boolean closed;
+    private volatile boolean ready;
+
+    private FileChannel segment;
+    private long segmentNo;
+    private long segmentBytes;
+    private long writtenSeq = REPLAYED; // last record written to a segment, under ioLock
+
+    private volatile BookingStore compactionSource;
+    private volatile long compactionThreshold = Long.MAX_VALUE;
+    private volatile boolean compacting;
+    private volatile IOException compactionFailure;
+
+    private BookingJournal(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        committer = new Thread(this::commitLoop, "booking-journal-committer");
+        committer.setDaemon(true);
+    }
+
+    public static BookingJournal open(Path dir) throws IOException {
+        return new BookingJournal(dir);
+    }
+
+    // Rebuilds state from the snapshot and then every live segment, in order.
+    // Must be called once, before the first append.
+    public void replay(Consumer<SmellyHotel.BookingData> onPut, LongConsumer onRemove) throws IOException {
+        long firstLive = 0;
+        Path snap = dir.resolve(SNAPSHOT);
+        if (Files.exists(snap)) {
+            try (FileChannel ch = FileChannel.open(snap, StandardOpenOption.READ)) {
+                ByteBuffer head = ByteBuffer.allocate(12);
+                readFully(ch, head);
+                head.flip();
+                if (head.remaining() < 12 || head.getInt() != SNAPSHOT_MAGIC) {
+                    throw new IOException("Corrupt snapshot: " + snap);
+                }
+                firstLive = head.getLong();
+                readRecords(ch, replayed(onPut), onRemove);
+            }
+        }
+        List<Long> segments = listSegments();
+        for (long no : segments) {
+            if (no < firstLive) {
+                Files.deleteIfExists(segmentPath(no)); // already folded into the snapshot
+                continue;
+            }
+            try (FileChannel ch = FileChannel.open(segmentPath(no), StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                long good = readRecords(ch, replayed(onPut), onRemove);
+                if (good < ch.size()) ch.truncate(good); // drop a torn tail
+            }
+        }
+        long last = segments.isEmpty() ? firstLive : Math.max(firstLive, segments.get(segments.size() - 1));
+        synchronized (ioLock) {
+            openSegment(last);
+        }
+        ready = true;
+        committer.start();
+    }
+
+    private static Consumer<SmellyHotel.BookingData> replayed(Consumer<SmellyHotel.BookingData> onPut) {
+        return b -> {
+            b.setJournalSeq(REPLAYED);
+            onPut.accept(b);
+        };
+    }
+
+    // The booking must already be in the store, so a snapshot cannot miss it.
+    public void appendPut(SmellyHotel.BookingData b) throws IOException {
+        appendPutAll(Collections.singletonList(b));
+    }
+
+    // Journals the removal of a booking that is still in the store; take it out of
+    // the store once this returns. False if another removal of b is under way, or if
+    // b's PUT is not queued yet (its creation has not reached the journal), so a PUT
+    // is never skipped for a booking its creator still reports as made.
+    public boolean appendRemove(SmellyHotel.BookingData b) throws IOException {
+        ByteBuffer record = encodeRemove(b.getId());
+        long ticket;
+        synchronized (lock) {
+            checkOpen();
+            if (b.getRemovedSeq() != 0 || b.getJournalSeq() == 0) return false;
+            pending.add(record);
+            ticket = ++appendedSeq;
+            b.setRemovedSeq(ticket);
+            lock.notifyAll();
+        }
+        try {
+            awaitDurable(ticket);
+        } catch (IOException e) {
+            b.setRemovedSeq(0); // still booked
+            throw e;
+        }
+        return true;
+    }
+
+    // Queues a whole batch and waits for a single commit covering all of it.
+    // The bookings must already be in the store. A booking whose REMOVE is already
+    // journaled is skipped, so rewriting a stored booking cannot revive it on replay.
+    public void appendPutAll(Collection<SmellyHotel.BookingData> bookings) throws IOException {
+        List<ByteBuffer> records = new ArrayList<>(bookings.size());
+        for (SmellyHotel.BookingData b : bookings) records.add(encodePut(b));
+        long ticket;
+        synchronized (lock) {
+            checkOpen();
+            int i = 0;
+            for (SmellyHotel.BookingData b : bookings) {
+                ByteBuffer record = records.get(i++);
+                if (b.getRemovedSeq() != 0) continue;
+                pending.add(record);
+                ++appendedSeq;
+                if (b.getJournalSeq() == 0) b.setJournalSeq(appendedSeq); // first durable version
+            }
+            ticket = appendedSeq;
+            lock.notifyAll();
+        }
+        awaitDurable(ticket);
+    }
+
+    private void checkOpen() throws IOException {
+        if (failure != null) throw failure;
+        if (closed) throw new IOException("Journal closed");
+        if (!ready) throw new IOException("Journal not replayed yet");
+    }
+
+    private void awaitDurable(long ticket) throws IOException {
+        boolean interrupted = false;
+        synchronized (lock) {
+            while (durableSeq < ticket && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true; // the record is already queued, so keep waiting
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+            if (durableSeq < ticket) throw failure;
+        }
+    }
+
+    private void commitLoop() {
+        while (true) {
+            ArrayList<ByteBuffer> batch;
+            long upTo;
+            synchronized (lock) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) return;
+                batch = pending;
+                pending = new ArrayList<>();
+                upTo = appendedSeq;
+            }
+            try {
+                synchronized (ioLock) {
+                    ByteBuffer[] bufs = batch.toArray(new ByteBuffer[0]);
+                    long n = 0;
+                    for (ByteBuffer b : bufs) n += b.remaining();
+                    long written = 0;
+                    while (written < n) written += segment.write(bufs);
+                    segment.force(false);
+                    segmentBytes += n;
+                    writtenSeq = upTo;
+                }
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+            synchronized (lock) {
+                durableSeq = upTo;
+                lock.notifyAll();
+            }
+            maybeCompact();
+        }
+    }
+
+    // Compacts in the background whenever the active segment grows past thresholdBytes.
+    public void enableCompaction(BookingStore store, long thresholdBytes) {
+        compactionSource = store;
+        compactionThreshold = thresholdBytes;
+    }
+
+    // Last background compaction error, null once one succeeds.
+    public IOException compactionFailure() {
+        return compactionFailure;
+    }
+
+    private void maybeCompact() {
+        if (compacting || compactionSource == null) return;
+        synchronized (ioLock) {
+            if (segmentBytes < compactionThreshold) return;
+        }
+        compacting = true;
+        Thread t = new Thread(() -> {
+            try {
+                compact(compactionSource);
+                compactionFailure = null;
+            } catch (IOException | RuntimeException e) {
+                // the log is intact (a failed roll keeps the old segment), so only
+                // compaction failed; the next commit past the threshold retries
+                compactionFailure = e instanceof IOException ? (IOException) e : new IOException(e);
+            } finally {
+                compacting = false;
+            }
+        }, "booking-journal-compactor");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    // Rolls to a new segment, writes a snapshot of the store and deletes the segments
+    // the snapshot covers. A booking is put in the store before its PUT is journaled
+    // and taken out after its REMOVE is, so the store holds everything the older
+    // segments hold. Of it, the snapshot keeps what those segments say is booked.
+    public void compact(BookingStore store) throws IOException {
+        synchronized (compactLock) {
+            writeSnapshot(store);
+        }
+    }
+
+    private void writeSnapshot(BookingStore store) throws IOException {
+        long firstLive, covered;
+        synchronized (ioLock) {
+            FileChannel old = segment;
+            openSegment(segmentNo + 1); // if this fails, appends go on to the old segment
+            firstLive = segmentNo;
+            covered = writtenSeq;
+            old.close();
+        }
+        Path tmp = dir.resolve(SNAPSHOT + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer head = ByteBuffer.allocate(12).putInt(SNAPSHOT_MAGIC).putLong(firstLive);
+            head.flip();
+            while (head.hasRemaining()) ch.write(head);
+            IOException[] err = new IOException[1];
+            store.forEach((id, b) -> {
+                if (err[0] != null) return;
+                long put = b.getJournalSeq(), removed = b.getRemovedSeq();
+                if (put == 0 || put > covered) return;         // not durable yet, or rolled back
+                if (removed != 0 && removed <= covered) return; // cancelled in a covered segment
+                try {
+                    ByteBuffer rec = encodePut(b);
+                    while (rec.hasRemaining()) ch.write(rec);
+                } catch (IOException e) {
+                    err[0] = e;
+                }
+            });
+            if (err[0] != null) throw err[0];
+            ch.force(true);
+        }
+        Files.move(tmp, dir.resolve(SNAPSHOT), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(); // the rename must be durable before the segments it replaces go
+        for (long no : listSegments()) {
+            if (no < firstLive) Files.deleteIfExists(segmentPath(no));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (compactLock) { // lets a background compaction finish
+            synchronized (ioLock) {
+                if (segment != null) segment.close();
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- encoding
+
+    static ByteBuffer encodePut(SmellyHotel.BookingData b) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bos);
+        out.write(new byte[HEADER]);
+        out.writeByte(PUT_PRICED);
+        out.writeLong(b.getId());
+        writeString(out, b.getCustomerName());
+        writeString(out, b.getPhone());
+        writeString(out, b.getAddress());
+        writeString(out, b.getRoomType());
+        out.writeInt(b.getNights());
+        out.writeBoolean(b.isBreakfast());
+        out.writeBoolean(b.isAirportPickup());
+        out.writeDouble(b.getBasePrice());
+        out.writeDouble(b.getTaxRate());
+        writeString(out, b.getCouponCode());
+        out.writeLong(b.getCreatedAt() == null ? Long.MIN_VALUE : b.getCreatedAt().toEpochDay());
+        out.writeDouble(b.getFinalAmount());
+        out.writeDouble(b.getCouponFactor());
+        out.flush();
+        ByteBuffer buf = ByteBuffer.wrap(bos.toByteArray());
+        buf.position(buf.limit());
+        return seal(buf);
+    }
+
+    static ByteBuffer encodeRemove(long id) {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER + 1 + 8);
+        buf.position(HEADER);
+        buf.put(REMOVE).putLong(id);
+        return seal(buf);
+    }
+
+    static SmellyHotel.BookingData decodePut(DataInputStream in, boolean priced) throws IOException {
+        SmellyHotel.BookingData b = new SmellyHotel.BookingData();
+        b.setId(in.readLong());
+        b.setCustomerName(readString(in));
+        b.setPhone(readString(in));
+        b.setAddress(readString(in));
+        b.setRoomType(readString(in));
+        b.setNights(in.readInt());
+        b.setBreakfast(in.readBoolean());
+        b.setAirportPickup(in.readBoolean());
+        b.setBasePrice(in.readDouble());
+        b.setTaxRate(in.readDouble());
+        b.setCouponCode(readString(in));
+        long day = in.readLong();
+        b.setCreatedAt(day == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(day));
+        if (priced) {
+            b.setFinalAmount(in.readDouble());
+            b.setCouponFactor(in.readDouble());
+        }
+        return b;
+    }
+
+    // Fills in length and checksum for a buffer whose payload starts at HEADER.
+    private static ByteBuffer seal(ByteBuffer buf) {
+        int end = buf.position();
+        int len = end - HEADER;
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), buf.arrayOffset() + HEADER, len);
+        buf.putInt(0, len).putInt(4, (int) crc.getValue());
+        buf.position(0).limit(end);
+        return buf;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // Applies every intact record and returns the position just after the last one.
+    private static long readRecords(FileChannel ch, Consumer<SmellyHotel.BookingData> onPut,
+                                    LongConsumer onRemove) throws IOException {
+        long pos = ch.position();
+        ByteBuffer head = ByteBuffer.allocate(HEADER);
+        while (true) {
+            head.clear();
+            if (readFully(ch, head) < HEADER) return pos;
+            head.flip();
+            int len = head.getInt();
+            int sum = head.getInt();
+            if (len <= 0 || len > MAX_RECORD) return pos;
+            ByteBuffer body = ByteBuffer.allocate(len);
+            if (readFully(ch, body) < len) return pos;
+            CRC32 crc = new CRC32();
+            crc.update(body.array(), 0, len);
+            if ((int) crc.getValue() != sum) return pos;
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(body.array()));
+            byte type = in.readByte();
+            if (type == PUT || type == PUT_PRICED) onPut.accept(decodePut(in, type == PUT_PRICED));
+            else if (type == REMOVE) onRemove.accept(in.readLong());
+            else return pos;
+            pos += HEADER + len;
+        }
+    }
+
+    private static int readFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        int total = 0;
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf);
+            if (n < 0) break;
+            total += n;
+        }
+        return total;
+    }
+
+    // ---------------------------------------------------------------- segments
+
+    // Leaves the current segment in place if the new one cannot be opened.
+    private void openSegment(long no) throws IOException {
+        Path p = segmentPath(no);
+        boolean created = !Files.exists(p);
+        FileChannel ch = FileChannel.open(p, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        try {
+            if (created) syncDirectory(); // records forced into it must not lose their file
+            segmentBytes = ch.size();
+        } catch (IOException e) {
+            ch.close();
+            throw e;
+        }
+        segment = ch;
+        segmentNo = no;
+    }
+
+    private void syncDirectory() throws IOException {
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (AccessDeniedException e) {
+            // Windows cannot open a directory; NTFS renames are journaled anyway
+        }
+    }
+
+    private Path segmentPath(long no) {
+        return dir.resolve(String.format("journal-%016d.log", no));
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> out = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "journal-*.log")) {
+            for (Path p : ds) {
+                String n = p.getFileName().toString();
+                out.add(Long.parseLong(n.substring("journal-".length(), n.length() - ".log".length())));
+            }
+        }
+        Collections.sort(out);
+        return out;
+    }
+}
@@ -0,0 +1,279 @@
+// File: BookingStore.java
+// Purpose: Thread-safe, lock-striped booking store for SmellyHotel.HotelManager.
+// Bookings get a primitive long id and are indexed by customer name, room type
+// and creation date so lookups never have to walk every booking. The secondary
+// indexes map each key to its bookings by id (in insertion order), so a cancel
+// unindexes in O(1) instead of scanning a room type's whole list.
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class BookingStore {
+
+    public interface BookingVisitor {
+        void visit(long id, SmellyHotel.BookingData b);
+    }
+
+    private static final int DEFAULT_STRIPES = 16;
+
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final Stripe[] stripes;
+    private final int mask;
+
+    // Each stripe owns the bookings whose id hashes to it, together with the
+    // secondary indexes for those bookings, all guarded by the stripe lock.
+    private static final class Stripe {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final NavigableMap<Long, SmellyHotel.BookingData> byId = new TreeMap<>();
+        final Map<String, Map<Long, SmellyHotel.BookingData>> byCustomer = new HashMap<>();
+        final Map<String, Map<Long, SmellyHotel.BookingData>> byRoomType = new HashMap<>();
+        final NavigableMap<LocalDate, Map<Long, SmellyHotel.BookingData>> byCreatedAt = new TreeMap<>();
+    }
+
+    public BookingStore() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public BookingStore(int stripeCount) {
+        if (stripeCount <= 0) throw new IllegalArgumentException("stripeCount must be > 0");
+        int n = 1;
+        while (n < stripeCount) n <<= 1;
+        stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) stripes[i] = new Stripe();
+        mask = n - 1;
+    }
+
+    private int stripeIndex(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+
+    private Stripe stripeFor(long id) {
+        return stripes[stripeIndex(id)];
+    }
+
+    // Assigns a fresh id to the booking and indexes it.
+    public long add(SmellyHotel.BookingData b) {
+        long id = nextId.getAndIncrement();
+        b.setId(id);
+        put(b);
+        return id;
+    }
+
+    // Assigns ids to a whole batch and indexes it, taking each stripe lock once.
+    public void addAll(List<SmellyHotel.BookingData> batch) {
+        if (batch.isEmpty()) return;
+        long first = nextId.getAndAdd(batch.size());
+        List<List<SmellyHotel.BookingData>> perStripe = new ArrayList<>(stripes.length);
+        for (int i = 0; i < stripes.length; i++) perStripe.add(new ArrayList<>());
+        for (int i = 0; i < batch.size(); i++) {
+            SmellyHotel.BookingData b = batch.get(i);
+            b.setId(first + i);
+            perStripe.get(stripeIndex(b.getId())).add(b);
+        }
+        for (int i = 0; i < stripes.length; i++) {
+            List<SmellyHotel.BookingData> part = perStripe.get(i);
+            if (part.isEmpty()) continue;
+            Stripe s = stripes[i];
+            s.lock.writeLock().lock();
+            try {
+                for (SmellyHotel.BookingData b : part) {
+                    s.byId.put(b.getId(), b);
+                    index(s, b);
+                }
+            } finally {
+                s.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Indexes a booking that already carries an id (e.g. restored from disk) and
+    // returns the booking it replaced, if any.
+    public SmellyHotel.BookingData put(SmellyHotel.BookingData b) {
+        long id = b.getId();
+        if (id <= 0) throw new IllegalArgumentException("booking has no id");
+        nextId.accumulateAndGet(id + 1, Math::max);
+        Stripe s = stripeFor(id);
+        s.lock.writeLock().lock();
+        try {
+            SmellyHotel.BookingData old = s.byId.put(id, b);
+            if (old != null) unindex(s, old);
+            index(s, b);
+            return old;
+        } finally {
+            s.lock.writeLock().unlock();
+        }
+    }
+
+    // Removes a batch that was just added (e.g. after a failed journal write).
+    public void removeAll(List<SmellyHotel.BookingData> batch) {
+        for (SmellyHotel.BookingData b : batch) remove(b.getId());
+    }
+
+    public SmellyHotel.BookingData remove(long id) {
+        Stripe s = stripeFor(id);
+        s.lock.writeLock().lock();
+        try {
+            SmellyHotel.BookingData old = s.byId.remove(id);
+            if (old != null) unindex(s, old);
+            return old;
+        } finally {
+            s.lock.writeLock().unlock();
+        }
+    }
+
+    public SmellyHotel.BookingData get(long id) {
+        Stripe s = stripeFor(id);
+        s.lock.readLock().lock();
+        try {
+            return s.byId.get(id);
+        } finally {
+            s.lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        int n = 0;
+        for (Stripe s : stripes) {
+            s.lock.readLock().lock();
+            try {
+                n += s.byId.size();
+            } finally {
+                s.lock.readLock().unlock();
+            }
+        }
+        return n;
+    }
+
+    public List<SmellyHotel.BookingData> findByCustomer(String customerName) {
+        List<SmellyHotel.BookingData> out = new ArrayList<>();
+        for (Stripe s : stripes) {
+            s.lock.readLock().lock();
+            try {
+                Map<Long, SmellyHotel.BookingData> l = s.byCustomer.get(customerName);
+                if (l != null) out.addAll(l.values());
+            } finally {
+                s.lock.readLock().unlock();
+            }
+        }
+        return out;
+    }
+
+    public List<SmellyHotel.BookingData> findByRoomType(String roomType) {
+        List<SmellyHotel.BookingData> out = new ArrayList<>();
+        for (Stripe s : stripes) {
+            s.lock.readLock().lock();
+            try {
+                Map<Long, SmellyHotel.BookingData> l = s.byRoomType.get(roomType);
+                if (l != null) out.addAll(l.values());
+            } finally {
+                s.lock.readLock().unlock();
+            }
+        }
+        return out;
+    }
+
+    // Bookings created between from and to, both inclusive.
+    public List<SmellyHotel.BookingData> findByCreatedAt(LocalDate from, LocalDate to) {
+        List<SmellyHotel.BookingData> out = new ArrayList<>();
+        for (Stripe s : stripes) {
+            s.lock.readLock().lock();
+            try {
+                for (Map<Long, SmellyHotel.BookingData> l : s.byCreatedAt.subMap(from, true, to, true).values()) {
+                    out.addAll(l.values());
+                }
+            } finally {
+                s.lock.readLock().unlock();
+            }
+        }
+        return out;
+    }
+
+    public int countByRoomType(String roomType) {
+        int n = 0;
+        for (Stripe s : stripes) {
+            s.lock.readLock().lock();
+            try {
+                Map<Long, SmellyHotel.BookingData> l = s.byRoomType.get(roomType);
+                if (l != null) n += l.size();
+            } finally {
+                s.lock.readLock().unlock();
+            }
+        }
+        return n;
+    }
+
+    // Counts per room type, read straight from the room type index.
+    public Map<String, Integer> roomTypeCounts() {
+        Map<String, Integer> out = new HashMap<>();
+        for (Stripe s : stripes) {
+            s.lock.readLock().lock();
+            try {
+                for (Map.Entry<String, Map<Long, SmellyHotel.BookingData>> e : s.byRoomType.entrySet()) {
+                    out.merge(e.getKey(), e.getValue().size(), Integer::sum);
+                }
+            } finally {
+                s.lock.readLock().unlock();
+            }
+        }
+        return out;
+    }
+
+    // Up to limit bookings with ids greater than afterId, in id order. Used to walk
+    // the store page by page without holding any lock while the caller works on a page.
+    public List<SmellyHotel.BookingData> page(long afterId, int limit) {
+        List<SmellyHotel.BookingData> merged = new ArrayList<>();
+        for (Stripe s : stripes) {
+            s.lock.readLock().lock();
+            try {
+                int n = 0;
+                for (SmellyHotel.BookingData b : s.byId.tailMap(afterId, false).values()) {
+                    if (n++ == limit) break;
+                    merged.add(b);
+                }
+            } finally {
+                s.lock.readLock().unlock();
+            }
+        }
+        merged.sort(Comparator.comparingLong(SmellyHotel.BookingData::getId));
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    // Visits every booking, one stripe at a time under its read lock.
+    public void forEach(BookingVisitor visitor) {
+        for (Stripe s : stripes) {
+            s.lock.readLock().lock();
+            try {
+                for (Map.Entry<Long, SmellyHotel.BookingData> e : s.byId.entrySet()) {
+                    visitor.visit(e.getKey(), e.getValue());
+                }
+            } finally {
+                s.lock.readLock().unlock();
+            }
+        }
+    }
+
+    private static void index(Stripe s, SmellyHotel.BookingData b) {
+        s.byCustomer.computeIfAbsent(b.getCustomerName(), k -> new LinkedHashMap<>()).put(b.getId(), b);
+        s.byRoomType.computeIfAbsent(b.getRoomType(), k -> new LinkedHashMap<>()).put(b.getId(), b);
+        if (b.getCreatedAt() != null) {
+            s.byCreatedAt.computeIfAbsent(b.getCreatedAt(), k -> new LinkedHashMap<>()).put(b.getId(), b);
+        }
+    }
+
+    private static void unindex(Stripe s, SmellyHotel.BookingData b) {
+        removeFrom(s.byCustomer, b.getCustomerName(), b);
+        removeFrom(s.byRoomType, b.getRoomType(), b);
+        if (b.getCreatedAt() != null) removeFrom(s.byCreatedAt, b.getCreatedAt(), b);
+    }
+
+    private static <K> void removeFrom(Map<K, Map<Long, SmellyHotel.BookingData>> index, K key,
+                                       SmellyHotel.BookingData b) {
+        Map<Long, SmellyHotel.BookingData> l = index.get(key);
+        if (l == null) return;
+        l.remove(b.getId());
+        if (l.isEmpty()) index.remove(key);
+    }
+}
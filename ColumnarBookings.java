@@ -0,0 +1,180 @@
+// File: ColumnarBookings.java
+// Purpose: Columnar (structure-of-arrays) copy of HotelManager bookings for
+// revenue / tax / surcharge runs over large booking histories.
+//
+// Prices and tax rates sit in double[], nights in int[], breakfast and airport
+// pickup in two bitsets, and room types are dictionary-encoded to int codes.
+// The kernels are branch-free and keep four independent accumulators, so the
+// JIT can keep several lanes in flight instead of chasing one object per booking.
+// The WEEKDAY factor, extras, surcharges and any tax override come from a
+// PricingEngine rule set, captured when the copy is made, so totals agree with the
+// engine's rules.
+
+import java.util.*;
+
+public class ColumnarBookings {
+
+    private long[] ids;
+    private double[] basePrice;
+    private double[] taxRate;
+    private int[] nights;
+    private int[] roomCode;
+    private long[] breakfast;
+    private long[] pickup;
+    private int size;
+
+    private final double weekdayFactor;           // the ops report prices at WEEKDAY
+    private final double breakfastPrice;
+    private final double pickupPrice;
+    private final double taxOverride;             // NaN: each booking's own rate
+    private final Map<String, Double> surcharges; // per night, by room type
+
+    private final List<String> roomNames = new ArrayList<>();
+    private final Map<String, Integer> roomCodes = new HashMap<>();
+
+    public ColumnarBookings() {
+        this(1024, PricingEngine.RuleSet.bookingDefaults());
+    }
+
+    public ColumnarBookings(int capacity, PricingEngine.RuleSet rules) {
+        weekdayFactor = rules.policyFactor(PricingEngine.Policy.WEEKDAY);
+        breakfastPrice = rules.breakfastPrice();
+        pickupPrice = rules.airportPickupPrice();
+        taxOverride = rules.taxOverride();
+        surcharges = new HashMap<>(rules.roomSurcharges());
+        capacity = Math.max(64, capacity);
+        ids = new long[capacity];
+        basePrice = new double[capacity];
+        taxRate = new double[capacity];
+        nights = new int[capacity];
+        roomCode = new int[capacity];
+        breakfast = new long[(capacity + 63) >>> 6];
+        pickup = new long[(capacity + 63) >>> 6];
+    }
+
+    // Copy of the store priced with the rules pricing has right now.
+    public static ColumnarBookings of(BookingStore store, PricingEngine pricing) {
+        ColumnarBookings c = new ColumnarBookings(store.size(), pricing.rules());
+        store.forEach((id, b) -> c.add(b));
+        return c;
+    }
+
+    public void add(SmellyHotel.BookingData b) {
+        if (size == ids.length) grow();
+        int i = size++;
+        ids[i] = b.getId();
+        basePrice[i] = b.getBasePrice();
+        taxRate[i] = Double.isNaN(taxOverride) ? b.getTaxRate() : taxOverride;
+        nights[i] = b.getNights();
+        roomCode[i] = encodeRoom(b.getRoomType());
+        if (b.isBreakfast()) breakfast[i >>> 6] |= 1L << i;
+        if (b.isAirportPickup()) pickup[i >>> 6] |= 1L << i;
+    }
+
+    public int size() { return size; }
+    public long id(int row) { return ids[row]; }
+    public String roomType(int row) { return roomNames.get(roomCode[row]); }
+
+    // -1 when the room type never occurred.
+    public int roomCodeOf(String roomType) {
+        Integer c = roomCodes.get(roomType);
+        return c == null ? -1 : c;
+    }
+
+    // Sum of (base * WEEKDAY + extras) + tax, the ops report's per-booking formula.
+    public double revenue() {
+        double a0 = 0, a1 = 0, a2 = 0, a3 = 0;
+        int i = 0;
+        int n4 = size & ~3;
+        for (; i < n4; i += 4) {
+            a0 += gross(i);
+            a1 += gross(i + 1);
+            a2 += gross(i + 2);
+            a3 += gross(i + 3);
+        }
+        for (; i < size; i++) a0 += gross(i);
+        return (a0 + a1) + (a2 + a3);
+    }
+
+    // Tax part of revenue() alone.
+    public double tax() {
+        double a0 = 0, a1 = 0, a2 = 0, a3 = 0;
+        int i = 0;
+        int n4 = size & ~3;
+        for (; i < n4; i += 4) {
+            a0 += net(i) * taxRate[i];
+            a1 += net(i + 1) * taxRate[i + 1];
+            a2 += net(i + 2) * taxRate[i + 2];
+            a3 += net(i + 3) * taxRate[i + 3];
+        }
+        for (; i < size; i++) a0 += net(i) * taxRate[i];
+        return (a0 + a1) + (a2 + a3);
+    }
+
+    // Per-night room surcharge summed over all bookings; perNight is looked up by
+    // room type, missing types pay nothing.
+    public double surcharge(Map<String, Double> perNight) {
+        double[] byCode = new double[roomNames.size()];
+        for (int c = 0; c < byCode.length; c++) {
+            Double v = perNight.get(roomNames.get(c));
+            byCode[c] = v == null ? 0 : v;
+        }
+        double a0 = 0, a1 = 0, a2 = 0, a3 = 0;
+        int i = 0;
+        int n4 = size & ~3;
+        for (; i < n4; i += 4) {
+            a0 += byCode[roomCode[i]] * nights[i];
+            a1 += byCode[roomCode[i + 1]] * nights[i + 1];
+            a2 += byCode[roomCode[i + 2]] * nights[i + 2];
+            a3 += byCode[roomCode[i + 3]] * nights[i + 3];
+        }
+        for (; i < size; i++) a0 += byCode[roomCode[i]] * nights[i];
+        return (a0 + a1) + (a2 + a3);
+    }
+
+    // With the room surcharges of the rules this copy was made with.
+    public double surcharge() {
+        return surcharge(surcharges);
+    }
+
+    public long breakfasts() { return popCount(breakfast); }
+    public long pickups() { return popCount(pickup); }
+
+    // base * WEEKDAY + breakfast + pickup, selected through bit masks instead of branches
+    private double net(int i) {
+        long bf = (breakfast[i >>> 6] >>> i) & 1L;
+        long pk = (pickup[i >>> 6] >>> i) & 1L;
+        return basePrice[i] * weekdayFactor + bf * breakfastPrice + pk * pickupPrice;
+    }
+
+    private double gross(int i) {
+        double p = net(i);
+        return p + p * taxRate[i];
+    }
+
+    private int encodeRoom(String roomType) {
+        Integer c = roomCodes.get(roomType);
+        if (c != null) return c;
+        int code = roomNames.size();
+        roomNames.add(roomType);
+        roomCodes.put(roomType, code);
+        return code;
+    }
+
+    private long popCount(long[] bits) {
+        long n = 0;
+        for (int w = 0; w < (size + 63) >>> 6; w++) n += Long.bitCount(bits[w]);
+        return n;
+    }
+
+    private void grow() {
+        int cap = ids.length << 1;
+        ids = Arrays.copyOf(ids, cap);
+        basePrice = Arrays.copyOf(basePrice, cap);
+        taxRate = Arrays.copyOf(taxRate, cap);
+        nights = Arrays.copyOf(nights, cap);
+        roomCode = Arrays.copyOf(roomCode, cap);
+        breakfast = Arrays.copyOf(breakfast, (cap + 63) >>> 6);
+        pickup = Arrays.copyOf(pickup, (cap + 63) >>> 6);
+    }
+}
@@ -0,0 +1,274 @@
+// File: CouponRegistry.java
+// Purpose: Coupon campaigns matched by longest prefix, with validity windows and usage limits.
+//
+// Campaigns are compiled into a flat trie: per-node edge ranges in int/char arrays,
+// with the labels of each node sorted so the next edge is found by binary search.
+// A lookup walks the code once, costs O(code length), and allocates nothing. The
+// longest prefix that names a live campaign wins. A campaign is live inside its
+// [validFrom, validUntil) window and until its usage limit is used up.
+//
+// reload() compiles off to the side and publishes the new trie with a single
+// volatile write. Usage counters are keyed by prefix, so a campaign keeps its count
+// across reloads. Snapshots already handed out (e.g. to a pinned PricingEngine)
+// still share the live counters.
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CouponRegistry {
+
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    // One campaign: codes starting with prefix get price * factor.
+    public static final class Campaign {
+        public final String prefix;
+        public final double factor;
+        public final long validFromMillis;   // inclusive
+        public final long validUntilMillis;  // exclusive
+        public final long maxUses;
+
+        public Campaign(String prefix, double factor) {
+            this(prefix, factor, null, null, UNLIMITED);
+        }
+
+        // null bounds leave that side of the window open
+        public Campaign(String prefix, double factor, Instant validFrom, Instant validUntil, long maxUses) {
+            if (prefix == null || prefix.isEmpty()) throw new IllegalArgumentException("empty coupon prefix");
+            if (maxUses < 0) throw new IllegalArgumentException("maxUses must be >= 0");
+            this.prefix = prefix;
+            this.factor = factor;
+            this.validFromMillis = validFrom == null ? Long.MIN_VALUE : validFrom.toEpochMilli();
+            this.validUntilMillis = validUntil == null ? Long.MAX_VALUE : validUntil.toEpochMilli();
+            this.maxUses = maxUses;
+        }
+
+        @Override
+        public String toString() {
+            return prefix + " x" + factor;
+        }
+    }
+
+    // Immutable compiled trie; rule indexes are positions in campaign order.
+    public static final class Snapshot {
+        private final Clock clock;
+        private final Campaign[] campaigns;
+        private final AtomicLong[] uses;
+        private final int[] edgeStart;   // per node; edges of node n are [edgeStart[n], edgeStart[n + 1])
+        private final char[] edgeLabel;
+        private final int[] edgeChild;
+        private final int[] terminal;    // per node: rule ending here, or -1
+
+        private Snapshot(Clock clock, Campaign[] campaigns, AtomicLong[] uses,
+                         int[] edgeStart, char[] edgeLabel, int[] edgeChild, int[] terminal) {
+            this.clock = clock;
+            this.campaigns = campaigns;
+            this.uses = uses;
+            this.edgeStart = edgeStart;
+            this.edgeLabel = edgeLabel;
+            this.edgeChild = edgeChild;
+            this.terminal = terminal;
+        }
+
+        public int size() { return campaigns.length; }
+
+        public Campaign campaign(int rule) { return campaigns[rule]; }
+
+        public double factor(int rule) { return rule < 0 ? 1.0 : campaigns[rule].factor; }
+
+        public long uses(int rule) { return uses[rule].get(); }
+
+        // Rule of the longest live prefix of code, or -1.
+        public int match(String code) {
+            return match(code, clock.millis());
+        }
+
+        public int match(String code, long nowMillis) {
+            if (code == null) return -1;
+            int best = -1;
+            int node = 0;
+            for (int i = 0, n = code.length(); i < n; i++) {
+                node = child(node, code.charAt(i));
+                if (node < 0) break;
+                int rule = terminal[node];
+                if (rule >= 0 && live(rule, nowMillis)) best = rule;
+            }
+            return best;
+        }
+
+        // Campaign of the longest live prefix, after taking one use of it; null if none.
+        public Campaign redeem(String code) {
+            return redeem(code, clock.millis());
+        }
+
+        public Campaign redeem(String code, long nowMillis) {
+            while (true) {
+                int rule = match(code, nowMillis);
+                if (rule < 0) return null;
+                if (tryUse(rule)) return campaigns[rule];
+            }
+        }
+
+        // Takes one use of the rule; false once its limit is reached.
+        public boolean tryUse(int rule) {
+            long max = campaigns[rule].maxUses;
+            if (max == UNLIMITED) {
+                uses[rule].incrementAndGet();
+                return true;
+            }
+            AtomicLong u = uses[rule];
+            while (true) {
+                long n = u.get();
+                if (n >= max) return false;
+                if (u.compareAndSet(n, n + 1)) return true;
+            }
+        }
+
+        private boolean live(int rule, long now) {
+            Campaign c = campaigns[rule];
+            return now >= c.validFromMillis && now < c.validUntilMillis
+                    && (c.maxUses == UNLIMITED || uses[rule].get() < c.maxUses);
+        }
+
+        private int child(int node, char ch) {
+            int lo = edgeStart[node], hi = edgeStart[node + 1] - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                char l = edgeLabel[mid];
+                if (l < ch) lo = mid + 1;
+                else if (l > ch) hi = mid - 1;
+                else return edgeChild[mid];
+            }
+            return -1;
+        }
+    }
+
+    private final Clock clock;
+    private final ConcurrentHashMap<String, AtomicLong> usage = new ConcurrentHashMap<>();
+    private volatile Snapshot current;
+    private volatile long generation;
+
+    public CouponRegistry() {
+        this(Clock.systemUTC());
+    }
+
+    public CouponRegistry(Clock clock) {
+        this.clock = clock;
+        this.current = compile(Collections.emptyList());
+    }
+
+    public CouponRegistry(Collection<Campaign> campaigns) {
+        this(Clock.systemUTC());
+        reload(campaigns);
+    }
+
+    // Hot swap of the whole campaign list; lookups in flight finish on the old trie.
+    public void reload(Collection<Campaign> campaigns) {
+        Snapshot next = compile(campaigns);
+        synchronized (this) {
+            current = next;
+            generation++;
+        }
+    }
+
+    public long generation() { return generation; }
+
+    public Snapshot snapshot() { return current; }
+
+    public int match(String code) {
+        return current.match(code);
+    }
+
+    // Discount factor for the code right now, 1.0 when nothing live matches.
+    public double factor(String code) {
+        Snapshot s = current;
+        return s.factor(s.match(code));
+    }
+
+    // Matches and takes one use in a single step; returns the factor granted. If
+    // the best campaign runs out meanwhile, the next shorter live prefix is tried.
+    public double redeem(String code) {
+        Campaign c = redeemCampaign(code);
+        return c == null ? 1.0 : c.factor;
+    }
+
+    // Like redeem, but returns the campaign that granted the use, or null if none did.
+    public Campaign redeemCampaign(String code) {
+        return current.redeem(code, clock.millis());
+    }
+
+    // Gives back a use taken by redeem, e.g. when the booking it was for failed.
+    public void release(Campaign c) {
+        AtomicLong u = usage.get(c.prefix);
+        if (u != null) u.decrementAndGet();
+    }
+
+    // Uses recorded for a campaign prefix (0 if it was never used).
+    public long uses(String prefix) {
+        AtomicLong u = usage.get(prefix);
+        return u == null ? 0 : u.get();
+    }
+
+    // Builds a trie without publishing it. Later campaigns with the same prefix
+    // replace earlier ones.
+    Snapshot compile(Collection<Campaign> input) {
+        LinkedHashMap<String, Campaign> byPrefix = new LinkedHashMap<>();
+        for (Campaign c : input) byPrefix.put(c.prefix, c);
+        Campaign[] campaigns = byPrefix.values().toArray(new Campaign[0]);
+        AtomicLong[] uses = new AtomicLong[campaigns.length];
+        for (int i = 0; i < campaigns.length; i++) {
+            uses[i] = usage.computeIfAbsent(campaigns[i].prefix, p -> new AtomicLong());
+        }
+
+        // pointer trie first, then flattened breadth-first into arrays
+        List<TreeMap<Character, Integer>> kids = new ArrayList<>();
+        List<Integer> term = new ArrayList<>();
+        kids.add(new TreeMap<>());
+        term.add(-1);
+        for (int r = 0; r < campaigns.length; r++) {
+            int node = 0;
+            String p = campaigns[r].prefix;
+            for (int i = 0; i < p.length(); i++) {
+                Integer next = kids.get(node).get(p.charAt(i));
+                if (next == null) {
+                    next = kids.size();
+                    kids.get(node).put(p.charAt(i), next);
+                    kids.add(new TreeMap<>());
+                    term.add(-1);
+                }
+                node = next;
+            }
+            term.set(node, r);
+        }
+
+        int nodes = kids.size();
+        int[] order = new int[nodes];   // flat index -> builder node
+        int[] flat = new int[nodes];    // builder node -> flat index
+        int head = 0, tail = 0;
+        order[tail++] = 0;
+        while (head < tail) {
+            int n = order[head++];
+            flat[n] = head - 1;
+            for (int child : kids.get(n).values()) order[tail++] = child;
+        }
+        int[] edgeStart = new int[nodes + 1];
+        char[] edgeLabel = new char[nodes - 1];
+        int[] edgeChild = new int[nodes - 1];
+        int[] terminal = new int[nodes];
+        int e = 0;
+        for (int f = 0; f < nodes; f++) {
+            int n = order[f];
+            edgeStart[f] = e;
+            terminal[f] = term.get(n);
+            for (Map.Entry<Character, Integer> edge : kids.get(n).entrySet()) {
+                edgeLabel[e] = edge.getKey();
+                edgeChild[e] = flat[edge.getValue()];
+                e++;
+            }
+        }
+        edgeStart[nodes] = e;
+        return new Snapshot(clock, campaigns, uses, edgeStart, edgeLabel, edgeChild, terminal);
+    }
+}
@@ -0,0 +1,7 @@
+// File: CustomerCtx.java
+// Purpose: Marketing context the envy score and the Manager report read from.
+
+class CustomerCtx { // another DTO used by feature envy (FDP >= 2)
+    public String country, city;
+    public int loyalty;
+}
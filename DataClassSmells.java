@@ -111,6 +111,103 @@ public class DataClassSmells {
         }
     }
 
+    /**
+     * CustomerData with city and country held as codes of the shared
+     * {@link ValueDictionary} instances instead of one String per record.
+     * Getters decode (in the spelling the dictionary saw first); the code getters
+     * allow int comparisons.
+     */
+    public static class EncodedCustomerData {
+        private long id;
+        private String firstName;
+        private String lastName;
+        private String email;
+        private String phone;
+        private String addressLine1;
+        private String addressLine2;
+        private int cityCode;
+        private String postalCode;
+        private int countryCode;
+        private int loyaltyPoints;
+        private boolean active;
+
+        public EncodedCustomerData() { /* no-op */ }
+
+        public EncodedCustomerData(CustomerData c) {
+            this.id = c.getId();
+            this.firstName = c.getFirstName();
+            this.lastName = c.getLastName();
+            this.email = c.getEmail();
+            this.phone = c.getPhone();
+            this.addressLine1 = c.getAddressLine1();
+            this.addressLine2 = c.getAddressLine2();
+            setCity(c.getCity());
+            this.postalCode = c.getPostalCode();
+            setCountry(c.getCountry());
+            this.loyaltyPoints = c.getLoyaltyPoints();
+            this.active = c.isActive();
+        }
+
+        public CustomerData toCustomerData() {
+            return new CustomerData(id, firstName, lastName, email, phone, addressLine1, addressLine2,
+                    getCity(), postalCode, getCountry(), loyaltyPoints, active);
+        }
+
+        public long getId() { return id; }
+        public void setId(long id) { this.id = id; }
+
+        public String getFirstName() { return firstName; }
+        public void setFirstName(String firstName) { this.firstName = firstName; }
+
+        public String getLastName() { return lastName; }
+        public void setLastName(String lastName) { this.lastName = lastName; }
+
+        public String getEmail() { return email; }
+        public void setEmail(String email) { this.email = email; }
+
+        public String getPhone() { return phone; }
+        public void setPhone(String phone) { this.phone = phone; }
+
+        public String getAddressLine1() { return addressLine1; }
+        public void setAddressLine1(String addressLine1) { this.addressLine1 = addressLine1; }
+
+        public String getAddressLine2() { return addressLine2; }
+        public void setAddressLine2(String addressLine2) { this.addressLine2 = addressLine2; }
+
+        public String getCity() { return ValueDictionary.CITIES.decode(cityCode); }
+        public void setCity(String city) { this.cityCode = ValueDictionary.CITIES.encode(city); }
+        public int getCityCode() { return cityCode; }
+
+        public String getPostalCode() { return postalCode; }
+        public void setPostalCode(String postalCode) { this.postalCode = postalCode; }
+
+        public String getCountry() { return ValueDictionary.COUNTRIES.decode(countryCode); }
+        public void setCountry(String country) { this.countryCode = ValueDictionary.COUNTRIES.encode(country); }
+        public int getCountryCode() { return countryCode; }
+
+        public int getLoyaltyPoints() { return loyaltyPoints; }
+        public void setLoyaltyPoints(int loyaltyPoints) { this.loyaltyPoints = loyaltyPoints; }
+
+        public boolean isActive() { return active; }
+        public void setActive(boolean active) { this.active = active; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof EncodedCustomerData)) return false;
+            EncodedCustomerData that = (EncodedCustomerData) o;
+            return id == that.id;
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(id); }
+
+        @Override
+        public String toString() {
+            return "EncodedCustomerData{id=" + id + ", firstName='" + firstName + "', lastName='" + lastName + "'}";
+        }
+    }
+
     /**
      * SMELL: Data Class
      * - Public fields, mutable struct-like container
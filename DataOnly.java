@@ -0,0 +1,9 @@
+// File: DataOnly.java
+// Purpose: Guest record read field by field by EnvyUtil, Manager and EnvyTable.
+
+class DataOnly { // DATA CLASS (WOC ~ 0)
+    public String id, name, email, city, country, type, coupon;
+    public int level;
+    public boolean vip;
+    public double balance, tax;
+}
@@ -0,0 +1,62 @@
+// File: DayClock.java
+// Purpose: Today's date without allocating on every call.
+//
+// LocalDate.now() builds an Instant, consults the zone rules and creates a new
+// LocalDate on each call. This keeps the current day together with the millisecond
+// range it covers in the clock's zone. Almost every call is then a clock read and
+// two compares; the day is worked out again only once the range is left (midnight,
+// or the clock being set back).
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+public class DayClock {
+
+    private static final class Day {
+        final LocalDate date;
+        final long epochDay;
+        final long startMillis; // inclusive
+        final long endMillis;   // exclusive
+
+        Day(LocalDate date, long startMillis, long endMillis) {
+            this.date = date;
+            this.epochDay = date.toEpochDay();
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+    }
+
+    private final Clock clock;
+    private volatile Day current;
+
+    public DayClock() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public DayClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    public LocalDate today() {
+        return day().date;
+    }
+
+    public long epochDay() {
+        return day().epochDay;
+    }
+
+    private Day day() {
+        long now = clock.millis();
+        Day d = current;
+        if (d != null && now >= d.startMillis && now < d.endMillis) return d;
+        ZoneId zone = clock.getZone();
+        LocalDate date = LocalDate.ofInstant(Instant.ofEpochMilli(now), zone);
+        d = new Day(date,
+                date.atStartOfDay(zone).toInstant().toEpochMilli(),
+                date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+        current = d;
+        return d;
+    }
+}
@@ -0,0 +1,18 @@
+// File: EncodedCustomerCtx.java
+// Purpose: CustomerCtx with country and city as shared dictionary codes.
+
+class EncodedCustomerCtx {
+    public int countryCode, cityCode;
+    public int loyalty;
+
+    public static EncodedCustomerCtx of(CustomerCtx c) {
+        EncodedCustomerCtx e = new EncodedCustomerCtx();
+        e.countryCode = ValueDictionary.COUNTRIES.encode(c.country);
+        e.cityCode = ValueDictionary.CITIES.encode(c.city);
+        e.loyalty = c.loyalty;
+        return e;
+    }
+
+    public String country() { return ValueDictionary.COUNTRIES.decode(countryCode); }
+    public String city() { return ValueDictionary.CITIES.decode(cityCode); }
+}
@@ -0,0 +1,34 @@
+// File: EncodedDataOnly.java
+// Purpose: DataOnly with country, city and room type held as codes of the shared
+// ValueDictionary instances; decoded values come back in the spelling the
+// dictionary saw first.
+
+class EncodedDataOnly {
+    public String id, name, email, coupon;
+    public int countryCode, cityCode, typeCode;
+    public int level;
+    public boolean vip;
+    public double balance, tax;
+
+    public static EncodedDataOnly of(DataOnly d) {
+        EncodedDataOnly e = new EncodedDataOnly();
+        e.id = d.id; e.name = d.name; e.email = d.email; e.coupon = d.coupon;
+        e.countryCode = ValueDictionary.COUNTRIES.encode(d.country);
+        e.cityCode = ValueDictionary.CITIES.encode(d.city);
+        e.typeCode = ValueDictionary.ROOM_TYPES.encode(d.type);
+        e.level = d.level; e.vip = d.vip; e.balance = d.balance; e.tax = d.tax;
+        return e;
+    }
+
+    public String country() { return ValueDictionary.COUNTRIES.decode(countryCode); }
+    public String city() { return ValueDictionary.CITIES.decode(cityCode); }
+    public String type() { return ValueDictionary.ROOM_TYPES.decode(typeCode); }
+
+    public DataOnly toDataOnly() {
+        DataOnly d = new DataOnly();
+        d.id = id; d.name = name; d.email = email; d.coupon = coupon;
+        d.country = country(); d.city = city(); d.type = type();
+        d.level = level; d.vip = vip; d.balance = balance; d.tax = tax;
+        return d;
+    }
+}
@@ -0,0 +1,268 @@
+// File: EnvyTable.java
+// Purpose: Batch envy scoring (EnvyUtil.envyScore / Smelly.EnvyCalc.envy) of many
+// guests against many marketing contexts.
+//
+// Guests are stored column by column: balance and coupon factor in double[], level
+// in int[], VIP in a bitset. Country, city and room type are codes of the shared
+// ValueDictionary instances (so encoded records go in without decoding), and the
+// e-mail top-level domain is encoded per table. The string tests ("France",
+// "Lille", "SUITE", ".fr") run once per distinct value, not once per guest. Every
+// term of the score that depends only on the guest is folded into one column in a
+// single pass. A context then adds at most two constants and applies one factor, so
+// scoring guests x contexts is a tight loop over a double[] that C2 unrolls and
+// vectorizes. Guest ranges are split across a fork/join pool.
+// Scores equal the one-at-a-time methods bit for bit: the terms are applied in the
+// same order, and a term that does not apply adds 0.0 or multiplies by 1.0.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+
+public class EnvyTable {
+
+    private static final int LEAF_SIZE = 8192;
+
+    // A marketing context reduced to the three things the score uses.
+    public static final class Context {
+        final double countryBonus, cityBonus, loyaltyFactor;
+
+        Context(String country, String city, int loyalty) {
+            this.countryBonus = "France".equalsIgnoreCase(country) ? 0.4 : 0.0;
+            this.cityBonus = "Paris".equalsIgnoreCase(city) ? 0.1 : 0.0;
+            this.loyaltyFactor = loyalty > 2 ? 0.99 : 1.0;
+        }
+    }
+
+    public static Context context(CustomerCtx c) {
+        return new Context(c.country, c.city, c.loyalty);
+    }
+
+    public static Context context(Smelly.ForeignB b) {
+        return new Context(b.country, b.city, b.loyalty);
+    }
+
+    public static Context context(EncodedCustomerCtx c) {
+        return new Context(c.country(), c.city(), c.loyalty);
+    }
+
+    // String -> int code, 0 being null; the test is evaluated once per code.
+    private static final class Codes {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        Codes() {
+            values.add(null);
+        }
+
+        int encode(String s) {
+            if (s == null) return 0;
+            Integer c = codes.get(s);
+            if (c == null) {
+                c = values.size();
+                codes.put(s, c);
+                values.add(s);
+            }
+            return c;
+        }
+
+        double[] bonus(Predicate<String> test, double bonus) {
+            double[] out = new double[values.size()];
+            for (int c = 1; c < out.length; c++) out[c] = test.test(values.get(c)) ? bonus : 0.0;
+            return out;
+        }
+    }
+
+    private final CouponRegistry coupons;
+    private final Codes domains = new Codes(); // e-mail top-level domain, see topLevelDomain()
+
+    private String[] ids;
+    private double[] balance;
+    private double[] couponFactor;
+    private int[] level;
+    private long[] vip;
+    private int[] country, city, type, domain;
+    private int size;
+    private double[] partial; // guest-only part of the score; null after add()
+
+    public EnvyTable() {
+        this(EnvyUtil.VIP_ONLY);
+    }
+
+    // Coupon codes are resolved against `coupons` as rows are added.
+    public EnvyTable(CouponRegistry coupons) {
+        this.coupons = coupons;
+        int capacity = 1024;
+        ids = new String[capacity];
+        balance = new double[capacity];
+        couponFactor = new double[capacity];
+        level = new int[capacity];
+        vip = new long[(capacity + 63) >>> 6];
+        country = new int[capacity];
+        city = new int[capacity];
+        type = new int[capacity];
+        domain = new int[capacity];
+    }
+
+    public EnvyTable add(DataOnly a) {
+        addRow(a.id, a.balance, a.level, a.type, a.vip, a.coupon, a.email, a.country, a.city);
+        return this;
+    }
+
+    public EnvyTable add(Smelly.ForeignA a) {
+        addRow(a.id, a.balance, a.level, a.type, a.vip, a.coupon, a.email, a.country, a.city);
+        return this;
+    }
+
+    public EnvyTable add(EncodedDataOnly a) {
+        addCodes(a.id, a.balance, a.level, a.typeCode, a.vip, a.coupon, a.email, a.countryCode, a.cityCode);
+        return this;
+    }
+
+    private void addRow(String id, double bal, int lvl, String roomType, boolean isVip, String coupon,
+                        String email, String ctry, String cty) {
+        addCodes(id, bal, lvl, ValueDictionary.ROOM_TYPES.encode(roomType), isVip, coupon, email,
+                 ValueDictionary.COUNTRIES.encode(ctry), ValueDictionary.CITIES.encode(cty));
+    }
+
+    private synchronized void addCodes(String id, double bal, int lvl, int roomType, boolean isVip, String coupon,
+                                       String email, int ctry, int cty) {
+        if (size == ids.length) grow();
+        int i = size++;
+        ids[i] = id;
+        balance[i] = bal;
+        level[i] = lvl;
+        type[i] = roomType;
+        if (isVip) vip[i >>> 6] |= 1L << i;
+        couponFactor[i] = coupon != null ? coupons.factor(coupon) : 1.0;
+        domain[i] = domains.encode(topLevelDomain(email));
+        country[i] = ctry;
+        city[i] = cty;
+        partial = null;
+    }
+
+    // After the last '.', or null when there is none ("fr" alone does not end with ".fr").
+    private static String topLevelDomain(String email) {
+        int dot = email == null ? -1 : email.lastIndexOf('.');
+        return dot < 0 ? null : email.substring(dot + 1);
+    }
+
+    private void grow() {
+        int n = ids.length * 2;
+        ids = Arrays.copyOf(ids, n);
+        balance = Arrays.copyOf(balance, n);
+        couponFactor = Arrays.copyOf(couponFactor, n);
+        level = Arrays.copyOf(level, n);
+        vip = Arrays.copyOf(vip, (n + 63) >>> 6);
+        country = Arrays.copyOf(country, n);
+        city = Arrays.copyOf(city, n);
+        type = Arrays.copyOf(type, n);
+        domain = Arrays.copyOf(domain, n);
+    }
+
+    public int size() { return size; }
+    public String id(int row) { return ids[row]; }
+
+    // The guest terms in envyScore's order, one pass over the columns.
+    private synchronized double[] partial() {
+        if (partial != null) return partial;
+        double[] suite = bonus(ValueDictionary.ROOM_TYPES, "SUITE"::equals, 100);
+        double[] fr = domains.bonus("fr"::equals, 0.2);
+        double[] france = bonus(ValueDictionary.COUNTRIES, "France"::equalsIgnoreCase, 0.3);
+        double[] lille = bonus(ValueDictionary.CITIES, "Lille"::equalsIgnoreCase, 0.2);
+        double[] p = new double[size];
+        for (int i = 0; i < size; i++) {
+            double v = balance[i];
+            v += level[i] * 10;
+            v += suite[type[i]];
+            v *= (vip[i >>> 6] & (1L << i)) != 0 ? 0.95 : 1.0;
+            v *= couponFactor[i];
+            v += fr[domain[i]];
+            v += france[country[i]];
+            v += lille[city[i]];
+            p[i] = v;
+        }
+        partial = p;
+        return p;
+    }
+
+    // bonus by code of a shared dictionary; every code in the table is below size()
+    private static double[] bonus(ValueDictionary dict, Predicate<String> test, double bonus) {
+        double[] out = new double[dict.size()];
+        for (int c = 1; c < out.length; c++) out[c] = test.test(dict.decode(c)) ? bonus : 0.0;
+        return out;
+    }
+
+    public double score(int row, Context c) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("row " + row + " of " + size);
+        return ((partial()[row] + c.countryBonus) + c.cityBonus) * c.loyaltyFactor;
+    }
+
+    // Score of every row against c, in row order.
+    public double[] scores(Context c) {
+        return scores(List.of(c), ForkJoinPool.commonPool())[0];
+    }
+
+    // result[k][row] is row's score against contexts.get(k).
+    public double[][] scores(List<Context> contexts) {
+        return scores(contexts, ForkJoinPool.commonPool());
+    }
+
+    public double[][] scores(List<Context> contexts, ForkJoinPool pool) {
+        Context[] cs = contexts.toArray(new Context[0]);
+        double[] p = partial();
+        double[][] out = new double[cs.length][p.length];
+        pool.invoke(new ScoreTask(p, cs, out, 0, p.length));
+        return out;
+    }
+
+    // Single-threaded reference path.
+    public double[][] scoresSequential(List<Context> contexts) {
+        Context[] cs = contexts.toArray(new Context[0]);
+        double[] p = partial();
+        double[][] out = new double[cs.length][p.length];
+        scoreRange(p, cs, out, 0, p.length);
+        return out;
+    }
+
+    private static final class ScoreTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] partial;
+        private final Context[] contexts;
+        private final double[][] out;
+        private final int from, to;
+
+        ScoreTask(double[] partial, Context[] contexts, double[][] out, int from, int to) {
+            this.partial = partial;
+            this.contexts = contexts;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                scoreRange(partial, contexts, out, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ScoreTask(partial, contexts, out, from, mid),
+                      new ScoreTask(partial, contexts, out, mid, to));
+        }
+    }
+
+    // Contexts outer, rows inner: one range of `partial` stays in cache across contexts.
+    private static void scoreRange(double[] partial, Context[] contexts, double[][] out, int from, int to) {
+        for (int k = 0; k < contexts.length; k++) {
+            double a = contexts[k].countryBonus, b = contexts[k].cityBonus, m = contexts[k].loyaltyFactor;
+            double[] o = out[k];
+            for (int i = from; i < to; i++) o[i] = ((partial[i] + a) + b) * m;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+// File: EnvyUtil.java
+// Purpose: Envy score of a guest against a marketing context (DataOnly or encoded).
+
+import java.util.List;
+
+class EnvyUtil { // FEATURE ENVY (method-level): direct foreign attribute access
+    // envy scoring only ever honoured VIP codes
+    static final CouponRegistry VIP_ONLY = new CouponRegistry(List.of(new CouponRegistry.Campaign("VIP", 0.85)));
+
+    public static double envyScore(DataOnly a, CustomerCtx b) {
+        // No local state; grab a LOT from other objects (ATFD++)
+        double p = a.balance;
+        p += a.level * 10;
+        if ("SUITE".equals(a.type)) p += 100;
+        if (a.vip) p *= 0.95;
+        if (a.coupon != null) p *= VIP_ONLY.factor(a.coupon);
+        if (a.email != null && a.email.endsWith(".fr")) p += 0.2;
+        if ("France".equalsIgnoreCase(a.country)) p += 0.3;
+        if ("Lille".equalsIgnoreCase(a.city)) p += 0.2;
+
+        if ("France".equalsIgnoreCase(b.country)) p += 0.4;
+        if ("Paris".equalsIgnoreCase(b.city)) p += 0.1;
+        if (b.loyalty > 2) p *= 0.99;
+        return p;
+    }
+
+    // Codes of the values envyScore tests; comparing codes is equalsIgnoreCase
+    // (equals for the room type).
+    static final int FRANCE = ValueDictionary.COUNTRIES.encode("France");
+    static final int LILLE = ValueDictionary.CITIES.encode("Lille");
+    static final int PARIS = ValueDictionary.CITIES.encode("Paris");
+    static final int SUITE = ValueDictionary.ROOM_TYPES.encode("SUITE");
+
+    // Same score for encoded records, with int compares instead of string tests.
+    public static double envyScore(EncodedDataOnly a, EncodedCustomerCtx b) {
+        double p = a.balance;
+        p += a.level * 10;
+        if (a.typeCode == SUITE) p += 100;
+        if (a.vip) p *= 0.95;
+        if (a.coupon != null) p *= VIP_ONLY.factor(a.coupon);
+        if (a.email != null && a.email.endsWith(".fr")) p += 0.2;
+        if (a.countryCode == FRANCE) p += 0.3;
+        if (a.cityCode == LILLE) p += 0.2;
+
+        if (b.countryCode == FRANCE) p += 0.4;
+        if (b.cityCode == PARIS) p += 0.1;
+        if (b.loyalty > 2) p *= 0.99;
+        return p;
+    }
+}
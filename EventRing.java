@@ -0,0 +1,216 @@
+// File: EventRing.java
+// Purpose: Fixed-capacity, lock-free multi-producer ring of structured events.
+//
+// An event is an enum kind, a long, a reference to a string the producer already
+// holds (an id, a customer name) and a timestamp. These are written into parallel
+// arrays sized once up front, so memory stays constant however many events are
+// recorded. Producers claim a sequence number with one atomic add, fill the slot
+// and publish it. No locks, no allocation, and producers never wait for one
+// another or for readers. Once the ring is full the oldest events are overwritten.
+// Readers check a slot's stamp before and after copying it and skip slots
+// rewritten meanwhile. Text is only built when events are read back (render()).
+//
+// startFileSink() adds an optional background consumer that drains new events to
+// a file in batches. If it falls more than a ring's worth behind, it counts the
+// events it missed instead of holding producers back.
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+public class EventRing<K extends Enum<K>> {
+
+    public interface EventVisitor<K> {
+        void visit(long seq, long timeMillis, K kind, long value, String text);
+    }
+
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+    private final AtomicLongArray stamps; // seq + 1 once published, 0 while empty or being written
+    private final long[] times;
+    private final Object[] kinds;
+    private final long[] values;
+    private final String[] texts;
+
+    public EventRing(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+        int n = 1;
+        while (n < capacity) n <<= 1;
+        mask = n - 1;
+        stamps = new AtomicLongArray(n);
+        times = new long[n];
+        kinds = new Object[n];
+        values = new long[n];
+        texts = new String[n];
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    // Returns the event's sequence number.
+    public long record(K kind, long value, String text) {
+        long seq = next.getAndIncrement();
+        int i = (int) seq & mask;
+        stamps.set(i, 0);
+        VarHandle.storeStoreFence();
+        times[i] = System.currentTimeMillis();
+        kinds[i] = kind;
+        values[i] = value;
+        texts[i] = text;
+        stamps.lazySet(i, seq + 1);
+        return seq;
+    }
+
+    // Events recorded so far, including those already overwritten.
+    public long recorded() {
+        return next.get();
+    }
+
+    // Visits up to the last n events, oldest first; returns how many were visited.
+    public int forEachRecent(int n, EventVisitor<K> visitor) {
+        long end = next.get();
+        long start = Math.max(0, end - Math.min(n, mask + 1));
+        int visited = 0;
+        for (long seq = start; seq < end; seq++) {
+            if (read(seq, visitor)) visited++;
+        }
+        return visited;
+    }
+
+    // Visits up to max events from seq `from` on, oldest first, stopping at the first
+    // one still being written. Returns the sequence number to continue from; events
+    // skipped because they were overwritten are the gap not covered by visits.
+    public long drain(long from, int max, EventVisitor<K> visitor) {
+        long end = next.get();
+        long seq = Math.max(from, end - (mask + 1));
+        int visited = 0;
+        for (; seq < end && visited < max; seq++) {
+            if (read(seq, visitor)) {
+                visited++;
+            } else if (seq >= next.get() - (mask + 1)) {
+                break; // claimed but not published yet
+            }
+        }
+        return seq;
+    }
+
+    // The last n events as text, oldest first.
+    public List<String> lastMessages(int n) {
+        List<String> out = new ArrayList<>(Math.min(n, mask + 1));
+        forEachRecent(n, (seq, time, kind, value, text) -> out.add(render(kind, value, text)));
+        return out;
+    }
+
+    // How an event reads in reports and sink files; "KIND:text" unless overridden.
+    protected String render(K kind, long value, String text) {
+        return kind.name() + ":" + text;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean read(long seq, EventVisitor<K> visitor) {
+        int i = (int) seq & mask;
+        if (stamps.get(i) != seq + 1) return false;
+        long time = times[i];
+        K kind = (K) kinds[i];
+        long value = values[i];
+        String text = texts[i];
+        VarHandle.loadLoadFence();
+        if (stamps.get(i) != seq + 1) return false;
+        visitor.visit(seq, time, kind, value, text);
+        return true;
+    }
+
+    // Appends "<timeMillis> <seq> <render()>" lines for new events to file.
+    public FileSink startFileSink(Path file, int batchSize, long periodMillis) throws IOException {
+        return new FileSink(file, batchSize, periodMillis);
+    }
+
+    public final class FileSink implements Closeable {
+        private final BufferedWriter out;
+        private final int batchSize;
+        private final long periodNanos;
+        private final Thread thread;
+        private final AtomicLong written = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean closed;
+        private long cursor;
+        private IOException error;
+
+        private FileSink(Path file, int batchSize, long periodMillis) throws IOException {
+            this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            this.batchSize = Math.max(1, batchSize);
+            this.periodNanos = Math.max(1, periodMillis) * 1_000_000L;
+            this.cursor = next.get();
+            this.thread = new Thread(this::run, "event-sink-" + file.getFileName());
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        public long written() { return written.get(); }
+
+        // Events overwritten in the ring before the sink got to them.
+        public long dropped() { return dropped.get(); }
+
+        private void run() {
+            while (!closed) {
+                if (drainBatch() == 0) LockSupport.parkNanos(periodNanos);
+            }
+        }
+
+        // One batch from the ring to the file; returns how many events were written.
+        private int drainBatch() {
+            if (error != null) return 0;
+            long from = cursor;
+            int[] n = {0};
+            long to = drain(from, batchSize, (seq, time, kind, value, text) -> {
+                try {
+                    out.append(Long.toString(time)).append(' ').append(Long.toString(seq)).append(' ')
+                       .append(render(kind, value, text)).append('\n');
+                    n[0]++;
+                } catch (IOException e) {
+                    if (error == null) error = e;
+                }
+            });
+            cursor = to;
+            dropped.addAndGet(to - from - n[0]);
+            if (n[0] > 0) {
+                try {
+                    out.flush();
+                } catch (IOException e) {
+                    if (error == null) error = e;
+                }
+                written.addAndGet(n[0]);
+            }
+            return n[0];
+        }
+
+        // Stops the drain thread after writing what is already in the ring.
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            while (drainBatch() > 0) {
+                // flush the tail recorded before close()
+            }
+            out.close();
+            if (error != null) throw error;
+        }
+    }
+}
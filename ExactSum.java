@@ -0,0 +1,73 @@
+// File: ExactSum.java
+// Purpose: Mergeable double sum whose result does not depend on order or grouping.
+//
+// A plain `total += p` gives different last bits depending on how the additions
+// are grouped, so per-chunk totals merged in parallel do not match the sequential
+// loop. This keeps the running sum exactly, as a short list of non-overlapping
+// partials (Shewchuk's algorithm, as in Python's math.fsum), and rounds only once
+// in value(). Every split, merge order or thread count therefore gives the same,
+// correctly rounded total. Costs a few flops per add; the list rarely holds more
+// than a handful of partials.
+
+import java.util.Arrays;
+
+public class ExactSum {
+
+    private double[] partials = new double[4];
+    private int size;
+    private double special; // running sum of the infinities / NaNs, kept apart from the exact part
+
+    public ExactSum add(double x) {
+        if (!Double.isFinite(x)) {
+            special += x;
+            return this;
+        }
+        int i = 0;
+        for (int j = 0; j < size; j++) {
+            double y = partials[j];
+            if (Math.abs(x) < Math.abs(y)) {
+                double t = x;
+                x = y;
+                y = t;
+            }
+            double hi = x + y;
+            double lo = y - (hi - x);
+            if (lo != 0.0) partials[i++] = lo;
+            x = hi;
+        }
+        if (i == partials.length) partials = Arrays.copyOf(partials, i * 2);
+        partials[i] = x;
+        size = i + 1;
+        return this;
+    }
+
+    // Adds everything other has summed; other is left unchanged.
+    public ExactSum merge(ExactSum other) {
+        for (int j = 0; j < other.size; j++) add(other.partials[j]);
+        special += other.special;
+        return this;
+    }
+
+    // The exact sum rounded to the nearest double (ties to even).
+    public double value() {
+        if (special != 0.0 || Double.isNaN(special)) return special;
+        int n = size;
+        if (n == 0) return 0.0;
+        double hi = partials[--n];
+        double lo = 0.0;
+        while (n > 0) {
+            double x = hi;
+            double y = partials[--n];
+            hi = x + y;
+            lo = y - (hi - x);
+            if (lo != 0.0) break;
+        }
+        // hi + lo is a tie between two doubles: let the next partial decide the direction
+        if (n > 0 && ((lo < 0 && partials[n - 1] < 0) || (lo > 0 && partials[n - 1] > 0))) {
+            double y = lo * 2;
+            double x = hi + y;
+            if (y == x - hi) hi = x;
+        }
+        return hi;
+    }
+}
@@ -2,120 +2,80 @@
 // Top-level only (no nested classes) to suit simple analyzers.
 // Smells included: Switch Statement, Long Method, Long Parameter List,
 // Feature Envy (direct reads of foreign public fields), Data Class, God-ish class.
+// Classes other files use (DataOnly, CustomerCtx, EnvyUtil, the encoded records,
+// Manager and its report tallies) have their own files.
 
+import java.io.*;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.random.RandomGenerator;
+
+// Manager that one worker pool can share. Manager's plain int counters lose updates
+// when reports run concurrently, and its shared Random makes threads contend on one
+// seed. Here the counters are LongAdders read through immutable snapshots, and each
+// report draws from its own SplittableRandom stream. With a seed, report number n
+// (in start order) always gets stream n, and replayReport(n, ...) reruns it exactly.
+// counterA..C and rnd of the base class are not used; read counters().
+class ConcurrentManager extends Manager {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final LongAdder adderA = new LongAdder();
+    private final LongAdder adderB = new LongAdder();
+    private final LongAdder adderC = new LongAdder();
+    private final AtomicLong reports = new AtomicLong();
+    private final long seed;
+
+    public ConcurrentManager() {
+        this(new SplittableRandom().nextLong());
+    }
 
-class DataOnly { // DATA CLASS (WOC ~ 0)
-    public String id, name, email, city, country, type, coupon;
-    public int level;
-    public boolean vip;
-    public double balance, tax;
-}
+    public ConcurrentManager(long seed) {
+        this.seed = seed;
+    }
 
-class CustomerCtx { // another DTO used by feature envy (FDP >= 2)
-    public String country, city;
-    public int loyalty;
-}
+    public long seed() {
+        return seed;
+    }
 
-class EnvyUtil { // FEATURE ENVY (method-level): direct foreign attribute access
-    public static double envyScore(DataOnly a, CustomerCtx b) {
-        // No local state; grab a LOT from other objects (ATFD++)
-        double p = a.balance;
-        p += a.level * 10;
-        if ("SUITE".equals(a.type)) p += 100;
-        if (a.vip) p *= 0.95;
-        if (a.coupon != null) p *= a.coupon.startsWith("VIP") ? 0.85 : 1.0;
-        if (a.email != null && a.email.endsWith(".fr")) p += 0.2;
-        if ("France".equalsIgnoreCase(a.country)) p += 0.3;
-        if ("Lille".equalsIgnoreCase(a.city)) p += 0.2;
-
-        if ("France".equalsIgnoreCase(b.country)) p += 0.4;
-        if ("Paris".equalsIgnoreCase(b.city)) p += 0.1;
-        if (b.loyalty > 2) p *= 0.99;
-        return p;
+    // Reports started so far; the next one gets this stream number.
+    public long reportsStarted() {
+        return reports.get();
+    }
+
+    @Override
+    public ManagerCounters counters() {
+        return new ManagerCounters(adderA.sum(), adderB.sum(), adderC.sum());
+    }
+
+    // Reruns report number `report` with the coin flips it had the first time.
+    // Counters are added again, as for any other report.
+    public void replayReport(long report, List<DataOnly> all, CustomerCtx ctx, Writer out) throws IOException {
+        timedReport(all, ctx, out, null, stream(report));
+    }
+
+    @Override
+    RandomGenerator reportRandom() {
+        return stream(reports.getAndIncrement());
     }
-}
 
-class Manager { // GOD-ish: many responsibilities, multiple switches, long method
-    public String api = "https://api.example.com";
-    public int counterA, counterB, counterC;
-    public List<String> logs = new ArrayList<>();
-    public Random rnd = new Random();
-
-    // SWITCH #1
-    public double applyPolicy(String policy, double amount) {
-        switch (policy) {
-            case "WEEKDAY": return amount;
-            case "WEEKEND": return amount * 1.10;
-            case "LOYALTY": return amount * 0.90;
-            case "BLACK_FRIDAY": return amount * 0.60;
-            case "LAST_MINUTE": return amount * 0.80;
-            default: return amount;
-        }
+    @Override
+    void addCounters(ReportTally t) {
+        adderA.add(t.counterA);
+        adderB.add(t.counterB);
+        adderC.add(t.counterC);
     }
 
-    // SWITCH #2 (another obvious one)
-    public String classify(double price) {
-        switch ((int) Math.floor(price / 100)) {
-            case 0: return "LOW";
-            case 1:
-            case 2: return "MID";
-            default: return "HIGH";
-        }
+    // Seeds are scrambled: SplittableRandom(s) and SplittableRandom(s + GAMMA) would
+    // produce the same sequence shifted by one.
+    private RandomGenerator stream(long report) {
+        return new SplittableRandom(mix64(seed + report * GOLDEN_GAMMA));
     }
 
-    // LONG METHOD (intentionally bloated, ~>80 LOC)
-    public String hugeReport(List<DataOnly> all, CustomerCtx ctx) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("=== Report ===\n");
-        double total = 0;
-        int hi = 0, mid = 0, lo = 0;
-
-        for (DataOnly r : all) {
-            // direct foreign reads (also helps envy metrics of simple engines)
-            double p = r.balance;
-            if ("SUITE".equals(r.type)) p += 40 * r.level;
-            if ("DELUXE".equals(r.type)) p += 25 * r.level;
-            if (r.vip) p *= 0.95;
-            if (r.coupon != null && !r.coupon.isBlank()) {
-                if (r.coupon.startsWith("VIP")) p *= 0.85;
-                else if (r.coupon.startsWith("LOYAL")) p *= 0.90;
-            }
-            p = p + p * r.tax;
-
-            // use ctx too (foreign reads from another class)
-            if ("France".equalsIgnoreCase(ctx.country) && "Lille".equalsIgnoreCase(ctx.city)) p += 1.23;
-            if (ctx.loyalty > 3) p *= 0.98;
-
-            // SWITCH usage inside long method
-            p = applyPolicy(r.vip ? "LOYALTY" : "WEEKDAY", p);
-
-            total += p;
-            String c = classify(p); // another branchy call
-            logs.add(c + ":" + r.id);
-            if ("HIGH".equals(c)) hi++;
-            else if ("MID".equals(c)) mid++;
-            else lo++;
-
-            // useless complexity to raise WMC/LOC
-            if (rnd.nextBoolean()) {
-                for (int i = 0; i < (r.level % 5) + 3; i++) {
-                    counterA += (i % 2);
-                }
-            } else {
-                for (int i = 0; i < (ctx.loyalty % 4) + 2; i++) {
-                    counterB += (i % 3);
-                }
-            }
-            if (r.email != null && r.email.endsWith(".fr")) counterC++;
-        }
-
-        sb.append("hi=").append(hi).append(" mid=").append(mid).append(" lo=").append(lo).append("\n");
-        int start = Math.max(0, logs.size() - 10);
-        for (int i = start; i < logs.size(); i++) sb.append("LOG ").append(i).append(": ").append(logs.get(i)).append("\n");
-        int acc = 0; for (int i = 0; i < 130; i++) acc += i % 4; // filler
-        sb.append("total=").append(total).append(" acc=").append(acc).append("\n");
-        return sb.toString();
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
     }
 }
 
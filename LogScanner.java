@@ -0,0 +1,161 @@
+// File: LogScanner.java
+// Purpose: Parallel, memory-mapped scanner for the ops log read by
+// HotelManager.generateOperationsReport.
+//
+// The file is split into line-aligned chunks that are mapped and scanned on the
+// common fork/join pool. Matching works on raw bytes; a String is only built for
+// lines that actually contain ERROR or WARN. Lines end at '\n' (a trailing '\r'
+// is dropped), and a final line without a terminator still counts, like readLine().
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class LogScanner {
+
+    private static final byte[] ERROR = {'E', 'R', 'R', 'O', 'R'};
+    private static final byte[] WARN = {'W', 'A', 'R', 'N'};
+
+    private static final long MIN_CHUNK = 1L << 20;            // below this, one chunk is enough
+    private static final long MAX_CHUNK = Integer.MAX_VALUE;   // a single mapping is limited to 2 GB
+
+    public static final class Match {
+        public final boolean error; // false means WARN
+        public final String line;
+
+        Match(boolean error, String line) {
+            this.error = error;
+            this.line = line;
+        }
+    }
+
+    public static final class ScanResult {
+        public final long totalLines;
+        public final long errorLines;
+        public final long warnLines;
+        public final List<Match> matches; // in file order; a line with both words appears twice
+
+        ScanResult(long totalLines, long errorLines, long warnLines, List<Match> matches) {
+            this.totalLines = totalLines;
+            this.errorLines = errorLines;
+            this.warnLines = warnLines;
+            this.matches = matches;
+        }
+    }
+
+    public static ScanResult scan(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return scan(ch, 0, ch.size());
+        }
+    }
+
+    // Scans bytes [from, to). from must be at a line start; bytes after the last
+    // '\n' before "to" are counted as one unterminated line.
+    public static ScanResult scan(FileChannel ch, long from, long to) throws IOException {
+        if (to <= from) return new ScanResult(0, 0, 0, Collections.emptyList());
+        long[] bounds = chunkBounds(ch, from, to);
+        List<ScanResult> parts;
+        try {
+            parts = IntStream.range(0, bounds.length - 1).parallel()
+                    .mapToObj(i -> scanChunk(ch, bounds[i], bounds[i + 1]))
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        long lines = 0, errors = 0, warns = 0;
+        List<Match> matches = new ArrayList<>();
+        for (ScanResult r : parts) {
+            lines += r.totalLines;
+            errors += r.errorLines;
+            warns += r.warnLines;
+            matches.addAll(r.matches);
+        }
+        return new ScanResult(lines, errors, warns, matches);
+    }
+
+    // Nominal split points moved forward to just after the next '\n'.
+    private static long[] chunkBounds(FileChannel ch, long from, long to) throws IOException {
+        long len = to - from;
+        int n = (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4L, len / MIN_CHUNK));
+        while (len / n >= MAX_CHUNK) n++;
+        long[] bounds = new long[n + 1];
+        bounds[0] = from;
+        bounds[n] = to;
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+        for (int i = 1; i < n; i++) {
+            long pos = Math.max(from + len * i / n, bounds[i - 1]);
+            bounds[i] = nextLineStart(ch, pos, to, probe);
+        }
+        return bounds;
+    }
+
+    private static long nextLineStart(FileChannel ch, long pos, long to, ByteBuffer probe) throws IOException {
+        while (pos < to) {
+            probe.clear();
+            int n = ch.read(probe, pos);
+            if (n <= 0) return to;
+            for (int i = 0; i < n && pos + i < to; i++) {
+                if (probe.get(i) == '\n') return pos + i + 1;
+            }
+            pos += n;
+        }
+        return to;
+    }
+
+    private static ScanResult scanChunk(FileChannel ch, long start, long end) {
+        if (end <= start) return new ScanResult(0, 0, 0, Collections.emptyList());
+        MappedByteBuffer buf;
+        try {
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int limit = buf.limit();
+        long lines = 0, errors = 0, warns = 0;
+        List<Match> matches = new ArrayList<>();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buf.get(lineEnd) != '\n') lineEnd++;
+            int contentEnd = lineEnd > lineStart && buf.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            lines++;
+            boolean err = contains(buf, lineStart, contentEnd, ERROR);
+            boolean warn = contains(buf, lineStart, contentEnd, WARN);
+            if (err || warn) {
+                String text = decode(buf, lineStart, contentEnd);
+                if (err) { errors++; matches.add(new Match(true, text)); }
+                if (warn) { warns++; matches.add(new Match(false, text)); }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return new ScanResult(lines, errors, warns, matches);
+    }
+
+    private static boolean contains(ByteBuffer buf, int from, int to, byte[] needle) {
+        int last = to - needle.length;
+        byte first = needle[0];
+        outer:
+        for (int i = from; i <= last; i++) {
+            if (buf.get(i) != first) continue;
+            for (int j = 1; j < needle.length; j++) {
+                if (buf.get(i + j) != needle[j]) continue outer;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static String decode(ByteBuffer buf, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buf.get(from, bytes);
+        return new String(bytes, Charset.defaultCharset()); // same charset FileReader used
+    }
+}
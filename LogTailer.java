@@ -0,0 +1,113 @@
+// File: LogTailer.java
+// Purpose: Incremental ops-log scanning for HotelManager.generateOperationsReport.
+//
+// Remembers, per file, how far it has scanned together with the size, mtime and
+// file key (inode) seen last time. A poll only reads the bytes appended since then;
+// an unchanged file costs one stat call. A new file key, a shrinking file or an
+// in-place rewrite resets the file and rescans it from byte 0.
+//
+// Only complete lines are scanned. A trailing unterminated line is counted in
+// totalLines but is checked for ERROR/WARN once its '\n' arrives.
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class LogTailer {
+
+    private static final class FileState {
+        Object fileKey;
+        FileTime mtime;
+        long size = -1;
+        long offset;        // first byte not yet scanned; always a line start
+        long lines;
+        long errors;
+        long warns;
+        boolean partial;    // bytes after offset that do not end in '\n' yet
+        LogScanner.ScanResult last = new LogScanner.ScanResult(0, 0, 0, Collections.emptyList());
+    }
+
+    private final ConcurrentHashMap<Path, FileState> states = new ConcurrentHashMap<>();
+
+    // Returns running totals for the file; matches only holds lines found by this call.
+    public LogScanner.ScanResult poll(Path file) throws IOException {
+        FileState st = states.computeIfAbsent(file.toAbsolutePath().normalize(), k -> new FileState());
+        synchronized (st) {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            long size = attrs.size();
+            if (size == st.size && attrs.lastModifiedTime().equals(st.mtime)
+                    && Objects.equals(attrs.fileKey(), st.fileKey)) {
+                return unchanged(st);
+            }
+            boolean rotated = !Objects.equals(attrs.fileKey(), st.fileKey);
+            boolean truncated = size < st.offset || size < st.size;
+            boolean rewritten = size == st.size; // same length but touched: cannot trust the old tally
+            if (rotated || truncated || rewritten) reset(st);
+            st.fileKey = attrs.fileKey();
+            st.mtime = attrs.lastModifiedTime();
+            st.size = size;
+
+            LogScanner.ScanResult r;
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                long end = afterLastNewline(ch, st.offset, Math.min(size, ch.size()));
+                r = LogScanner.scan(ch, st.offset, end);
+                st.offset = end;
+                st.partial = size > end;
+            }
+            st.lines += r.totalLines;
+            st.errors += r.errorLines;
+            st.warns += r.warnLines;
+            st.last = new LogScanner.ScanResult(st.lines + (st.partial ? 1 : 0), st.errors, st.warns, r.matches);
+            return st.last;
+        }
+    }
+
+    // Forgets everything known about the file; the next poll rescans it in full.
+    public void forget(Path file) {
+        states.remove(file.toAbsolutePath().normalize());
+    }
+
+    private static LogScanner.ScanResult unchanged(FileState st) {
+        LogScanner.ScanResult l = st.last;
+        if (l.matches.isEmpty()) return l;
+        st.last = new LogScanner.ScanResult(l.totalLines, l.errorLines, l.warnLines, Collections.emptyList());
+        return st.last;
+    }
+
+    private static void reset(FileState st) {
+        st.offset = 0;
+        st.lines = 0;
+        st.errors = 0;
+        st.warns = 0;
+        st.partial = false;
+    }
+
+    // Position just after the last '\n' in [from, to), or from if there is none.
+    private static long afterLastNewline(FileChannel ch, long from, long to) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        long end = to;
+        while (end > from) {
+            long start = Math.max(from, end - buf.capacity());
+            buf.clear().limit((int) (end - start));
+            int n = 0;
+            while (buf.hasRemaining()) {
+                int r = ch.read(buf, start + n);
+                if (r < 0) break;
+                n += r;
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                if (buf.get(i) == '\n') return start + i + 1;
+            }
+            end = start;
+        }
+        return from;
+    }
+}
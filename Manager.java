@@ -0,0 +1,221 @@
+// File: Manager.java
+// Purpose: Report manager exercised by HotelSmells (hugeReport, sequential and on a
+// fork/join pool), also driven by StreamingReport window by window.
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
+
+class Manager { // GOD-ish: many responsibilities, multiple switches, long method
+    public String api = "https://api.example.com";
+    public int counterA, counterB, counterC;
+    // tier + record id of every report line; bounded, old entries are overwritten
+    public final EventRing<ReportTier> events = new EventRing<>(LOG_EVENTS);
+    public Random rnd = new Random();
+    public PricingEngine pricing = new PricingEngine(PricingEngine.RuleSet.reportDefaults());
+    // null: classify()'s fixed hundreds; otherwise resolved against priceHistory per report
+    public PriceTiers tiers;
+    // true adds the p50/p90/p99 price lines to reports (they also come with tiers)
+    public boolean priceQuantiles;
+    private final QuantileSketch priceHistory = new QuantileSketch(); // every price reported so far
+    private static final Metrics.Timer HUGE_REPORT = Metrics.timer("Manager.hugeReport");
+    static final int LOG_EVENTS = 1 << 14;
+
+    // policy factors come from the compiled rules; unknown names leave the amount as is
+    public double applyPolicy(String policy, double amount) {
+        return pricing.applyPolicy(PricingEngine.Policy.parse(policy), amount);
+    }
+
+    public double applyPolicy(PricingEngine.Policy policy, double amount) {
+        return pricing.applyPolicy(policy, amount);
+    }
+
+    // SWITCH #2 (another obvious one)
+    public String classify(double price) {
+        switch ((int) Math.floor(price / 100)) {
+            case 0: return "LOW";
+            case 1:
+            case 2: return "MID";
+            default: return "HIGH";
+        }
+    }
+
+    // Distribution of every price reported so far (a copy).
+    public QuantileSketch priceSketch() {
+        synchronized (priceHistory) {
+            return priceHistory.copy();
+        }
+    }
+
+    // Counter values as of now; see ConcurrentManager for a thread-safe variant.
+    public ManagerCounters counters() {
+        return new ManagerCounters(counterA, counterB, counterC);
+    }
+
+    public String hugeReport(List<DataOnly> all, CustomerCtx ctx) {
+        StringWriter out = new StringWriter();
+        try {
+            hugeReport(all, ctx, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a StringWriter does not fail
+        }
+        return out.toString();
+    }
+
+    public void hugeReport(List<DataOnly> all, CustomerCtx ctx, Writer out) throws IOException {
+        timedReport(all, ctx, out, null, reportRandom());
+    }
+
+    // Same report computed on a fork/join pool: the input is split with its
+    // Spliterator and per-chunk ReportTally results are merged in input order.
+    // Output, counters and logs match hugeReport for the same rnd state.
+    public String hugeReportParallel(List<DataOnly> all, CustomerCtx ctx) {
+        StringWriter out = new StringWriter();
+        try {
+            hugeReportParallel(all, ctx, out, ForkJoinPool.commonPool());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a StringWriter does not fail
+        }
+        return out.toString();
+    }
+
+    public void hugeReportParallel(List<DataOnly> all, CustomerCtx ctx, Writer out, ForkJoinPool pool)
+            throws IOException {
+        timedReport(all, ctx, out, pool, reportRandom());
+    }
+
+    // Source of the per-record coin flips of the next report.
+    RandomGenerator reportRandom() {
+        return rnd;
+    }
+
+    // Folds a finished report's counters into this manager.
+    void addCounters(ReportTally t) {
+        counterA += t.counterA;
+        counterB += t.counterB;
+        counterC += t.counterC;
+    }
+
+    void timedReport(List<DataOnly> all, CustomerCtx ctx, Writer out, ForkJoinPool pool, RandomGenerator coin)
+            throws IOException {
+        long t = HUGE_REPORT.start();
+        try {
+            writeReport(all, ctx, out, pool, coin);
+        } catch (IOException | RuntimeException e) {
+            HUGE_REPORT.failed();
+            throw e;
+        } finally {
+            HUGE_REPORT.stop(t);
+        }
+    }
+
+    // LONG METHOD (intentionally bloated, ~>80 LOC); streams to out in bounded chunks
+    private void writeReport(List<DataOnly> all, CustomerCtx ctx, Writer out, ForkJoinPool pool, RandomGenerator coin)
+            throws IOException {
+        ReportWriter sb = new ReportWriter(out);
+        sb.append("=== Report ===\n");
+
+        long base = events.recorded();
+        PriceTiers.Cut cut = tiers == null ? null : tiers.resolve(priceSketch());
+        ReportTally t;
+        if (pool == null) {
+            t = new ReportTally();
+            for (DataOnly r : all) tally(r, ctx, coin.nextBoolean(), cut, t);
+        } else {
+            // draw the coin flips up front, in input order, so the generator ends up where
+            // the sequential loop would leave it and every record sees the same flip
+            long[] coins = new long[(all.size() + 63) >>> 6];
+            for (int i = 0; i < all.size(); i++) {
+                if (coin.nextBoolean()) coins[i >>> 6] |= 1L << i;
+            }
+            Spliterator<DataOnly> split = all.spliterator();
+            if (!split.hasCharacteristics(Spliterator.SUBSIZED)) split = new ArrayList<>(all).spliterator();
+            t = pool.invoke(new ReportTask(this, ctx, cut, coins, split, 0));
+        }
+        fold(t);
+        writeTally(sb, t, base, cut, true);
+        sb.flush();
+    }
+
+    // Adds a finished tally's counters and prices to this manager's running state.
+    void fold(ReportTally t) {
+        addCounters(t);
+        synchronized (priceHistory) {
+            for (QuantileSketch s : t.prices) priceHistory.merge(s);
+        }
+    }
+
+    // Report body for t, whose first log line was event `base` of the ring; with
+    // topUp a short report is preceded by the lines logged before it.
+    void writeTally(ReportWriter sb, ReportTally t, long base, PriceTiers.Cut cut, boolean topUp) {
+        int hi = t.hi, mid = t.mid, lo = t.lo;
+        double total = t.total.value();
+
+        sb.append("hi=").append(hi).append(" mid=").append(mid).append(" lo=").append(lo).append("\n");
+        if (cut != null) {
+            sb.append("tiers mid>").append(cut.mid).append(" high>").append(cut.high)
+              .append(" (").append(tiers).append(")\n");
+        }
+        if (priceQuantiles || cut != null) PriceTiers.writeQuantiles(sb, t.prices);
+        // the tail comes from the tally: the ring may interleave chunks (or other reports)
+        int n = t.tailSize();
+        if (topUp && n < ReportTally.TAIL && base > 0) {
+            events.drain(Math.max(0, base - (ReportTally.TAIL - n)), ReportTally.TAIL - n, (seq, time, tier, cents, id) -> {
+                if (seq < base) sb.append("LOG ").append(seq).append(": ").append(tier.name()).append(':').append(id).append("\n");
+            });
+        }
+        for (int j = 0; j < n; j++) {
+            sb.append("LOG ").append(base + t.count - n + j).append(": ")
+              .append(t.tailTier(j).name()).append(':').append(t.tailId(j)).append("\n");
+        }
+        int acc = 0; for (int i = 0; i < 130; i++) acc += i % 4; // filler
+        sb.append("total=").append(total).append(" acc=").append(acc).append("\n");
+    }
+
+    // One record of the report; touches nothing but t and the lock-free events ring,
+    // so chunks can run in parallel.
+    void tally(DataOnly r, CustomerCtx ctx, boolean coin, PriceTiers.Cut cut, ReportTally t) {
+        // direct foreign reads (also helps envy metrics of simple engines)
+        double p = r.balance;
+        if ("SUITE".equals(r.type)) p += 40 * r.level;
+        if ("DELUXE".equals(r.type)) p += 25 * r.level;
+        if (r.vip) p *= 0.95;
+        if (r.coupon != null) p *= pricing.couponFactor(r.coupon);
+        p = p + p * r.tax;
+
+        // use ctx too (foreign reads from another class)
+        if ("France".equalsIgnoreCase(ctx.country) && "Lille".equalsIgnoreCase(ctx.city)) p += 1.23;
+        if (ctx.loyalty > 3) p *= 0.98;
+
+        // policy lookup by enum ordinal inside long method
+        p = applyPolicy(r.vip ? PricingEngine.Policy.LOYALTY : PricingEngine.Policy.WEEKDAY, p);
+
+        t.total.add(p);
+        ReportTier tier;
+        if (cut != null) {
+            tier = cut.tier(p);
+        } else {
+            String c = classify(p); // another branchy call
+            tier = "HIGH".equals(c) ? ReportTier.HIGH : "MID".equals(c) ? ReportTier.MID : ReportTier.LOW;
+        }
+        if (tier == ReportTier.HIGH) t.hi++;
+        else if (tier == ReportTier.MID) t.mid++;
+        else t.lo++;
+        t.prices[tier.ordinal()].add(p);
+        events.record(tier, Math.round(p * 100), r.id); // value: amount in cents
+        t.log(tier, r.id);
+
+        // useless complexity to raise WMC/LOC
+        if (coin) {
+            for (int i = 0; i < (r.level % 5) + 3; i++) {
+                t.counterA += (i % 2);
+            }
+        } else {
+            for (int i = 0; i < (ctx.loyalty % 4) + 2; i++) {
+                t.counterB += (i % 3);
+            }
+        }
+        if (r.email != null && r.email.endsWith(".fr")) t.counterC++;
+    }
+}
@@ -0,0 +1,31 @@
+// File: ManagerCounters.java
+// Purpose: Immutable read of a Manager's report counters.
+
+import java.util.Objects;
+
+final class ManagerCounters {
+    public final long counterA, counterB, counterC;
+
+    ManagerCounters(long counterA, long counterB, long counterC) {
+        this.counterA = counterA;
+        this.counterB = counterB;
+        this.counterC = counterC;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ManagerCounters)) return false;
+        ManagerCounters c = (ManagerCounters) o;
+        return counterA == c.counterA && counterB == c.counterB && counterC == c.counterC;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(counterA, counterB, counterC);
+    }
+
+    @Override
+    public String toString() {
+        return "counterA=" + counterA + " counterB=" + counterB + " counterC=" + counterC;
+    }
+}
@@ -0,0 +1,286 @@
+// File: Metrics.java
+// Purpose: Always-on latency histograms, counters and in-flight gauges for the hot paths.
+//
+// Each operation has a Timer: calls/errors counters, an in-flight gauge and
+// log-linear latency histograms in the HdrHistogram style. Every power of two of
+// nanoseconds is split into 16 sub-buckets, so any reported quantile is within
+// ~6% of the true value. Recording is a few atomic increments on fixed arrays, with
+// no locks and no allocation (bar one histogram per minute).
+// A call is recorded once, into the histogram for the current minute. Two of those
+// rotate. When a slot moves on to a new minute, the old histogram is swapped out
+// first. Once the calls still recording into it have finished, its counts are
+// folded into the all-time history, so no call is lost. The last full minute can
+// therefore be read on its own, and a p99 regression shows up at once instead of
+// being diluted by history.
+//
+// Timers are published as MXBeans (hotel:type=Operation,name=<op>), and
+// writeText() renders the Prometheus text format for scraping (see /metrics on
+// BookingHttpService).
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class Metrics {
+
+    private static final long WINDOW_NANOS = 60_000_000_000L;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static final ConcurrentSkipListMap<String, Timer> TIMERS = new ConcurrentSkipListMap<>();
+
+    private Metrics() {
+    }
+
+    public interface OperationMXBean {
+        long getCalls();
+        long getErrors();
+        long getInFlight();
+        double getMeanMicros();
+        double getP50Micros();
+        double getP90Micros();
+        double getP99Micros();
+        double getP999Micros();
+        double getMaxMicros();
+        // last completed one-minute window
+        long getRecentCalls();
+        double getRecentP99Micros();
+    }
+
+    // Lock-free log-linear histogram of non-negative longs (nanoseconds here).
+    public static final class Histogram {
+        private static final int SUB_BITS = 4;
+        private static final int SUB = 1 << SUB_BITS;
+        private static final int BUCKETS = (64 - SUB_BITS) * SUB;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        public void record(long value) {
+            if (value < 0) value = 0;
+            counts.incrementAndGet(bucket(value));
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        public long count() {
+            long n = 0;
+            for (int i = 0; i < BUCKETS; i++) n += counts.get(i);
+            return n;
+        }
+
+        public long sum() { return sum.sum(); }
+        public long max() { return max.get(); }
+
+        public double mean() {
+            long n = count();
+            return n == 0 ? 0 : (double) sum.sum() / n;
+        }
+
+        // Upper bound of the bucket holding the q-quantile (never above max()).
+        public long quantile(double q) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) total += counts.get(i);
+            if (total == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= rank) return Math.min(upperBound(i), max.get());
+            }
+            return max.get();
+        }
+
+        void add(Histogram other) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long c = other.counts.get(i);
+                if (c != 0) counts.addAndGet(i, c);
+            }
+            sum.add(other.sum.sum());
+            max.accumulate(other.max.get());
+        }
+
+        static int bucket(long v) {
+            if (v < SUB) return (int) v;
+            int e = 63 - Long.numberOfLeadingZeros(v);
+            int sub = (int) (v >>> (e - SUB_BITS)) & (SUB - 1);
+            return (e - SUB_BITS + 1) * SUB + sub;
+        }
+
+        static long upperBound(int i) {
+            if (i < SUB) return i;
+            int e = i / SUB + SUB_BITS - 1;
+            long sub = i % SUB;
+            long width = 1L << (e - SUB_BITS);
+            return ((SUB + sub) << (e - SUB_BITS)) + width - 1;
+        }
+    }
+
+    // Usage: long t = TIMER.start(); try { ... } catch (RuntimeException e) { TIMER.failed(); throw e; } finally { TIMER.stop(t); }
+    public static final class Timer implements OperationMXBean {
+        private final String name;
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder inFlight = new LongAdder();
+        private final Histogram history = new Histogram(); // minutes no longer in windows
+        private final AtomicReferenceArray<Minute> windows = new AtomicReferenceArray<>(
+                new Minute[] {new Minute(-1), new Minute(-1)});
+        private final long origin = System.nanoTime();
+        private final long windowNanos;
+
+        // One minute's histogram and the calls recording into it right now.
+        private static final class Minute {
+            final long index;
+            final Histogram histogram = new Histogram();
+            final LongAdder writers = new LongAdder();
+
+            Minute(long index) {
+                this.index = index;
+            }
+        }
+
+        Timer(String name) {
+            this(name, WINDOW_NANOS);
+        }
+
+        // Shorter windows let tests rotate without waiting minutes.
+        Timer(String name, long windowNanos) {
+            this.name = name;
+            this.windowNanos = windowNanos;
+        }
+
+        public String name() { return name; }
+
+        public long start() {
+            inFlight.increment();
+            return System.nanoTime();
+        }
+
+        public void stop(long startNanos) {
+            long now = System.nanoTime();
+            inFlight.decrement();
+            Minute m = enter((now - origin) / windowNanos);
+            m.histogram.record(now - startNanos);
+            m.writers.decrement();
+        }
+
+        public void failed() {
+            errors.increment();
+        }
+
+        // All-time latencies; a merged copy, so read it once per report.
+        public synchronized Histogram histogram() {
+            Histogram h = new Histogram();
+            h.add(history);
+            h.add(windows.get(0).histogram);
+            h.add(windows.get(1).histogram);
+            return h;
+        }
+
+        // Histogram of the last completed minute (empty if nothing was recorded then).
+        public Histogram recent() {
+            long w = (System.nanoTime() - origin) / windowNanos - 1;
+            Minute m = windows.get((int) (w & 1));
+            return m.index == w ? m.histogram : EMPTY;
+        }
+
+        // The minute to record w into, registered as a writer; leave it with
+        // writers.decrement(). A caller that stalled past its minute records into the
+        // newer one in its slot rather than turning the slot back.
+        private Minute enter(long w) {
+            int slot = (int) (w & 1);
+            while (true) {
+                Minute m = windows.get(slot);
+                if (m.index < w) {
+                    rotate(slot, m, w);
+                    continue;
+                }
+                m.writers.increment();
+                if (windows.get(slot) == m) return m;
+                m.writers.decrement(); // rotated meanwhile: it may be folded already
+            }
+        }
+
+        // Swaps the slot to minute w, waits for the old minute's writers, then folds
+        // it into history. Writers re-check the slot after registering, so none can
+        // join once the swap is visible.
+        private synchronized void rotate(int slot, Minute old, long w) {
+            if (windows.get(slot) != old) return;
+            windows.set(slot, new Minute(w));
+            while (old.writers.sum() != 0) Thread.onSpinWait();
+            history.add(old.histogram);
+        }
+
+        @Override public long getCalls() { return histogram().count(); }
+        @Override public long getErrors() { return errors.sum(); }
+        @Override public long getInFlight() { return inFlight.sum(); }
+        @Override public double getMeanMicros() { return histogram().mean() / 1e3; }
+        @Override public double getP50Micros() { return histogram().quantile(0.5) / 1e3; }
+        @Override public double getP90Micros() { return histogram().quantile(0.9) / 1e3; }
+        @Override public double getP99Micros() { return histogram().quantile(0.99) / 1e3; }
+        @Override public double getP999Micros() { return histogram().quantile(0.999) / 1e3; }
+        @Override public double getMaxMicros() { return histogram().max() / 1e3; }
+        @Override public long getRecentCalls() { return recent().count(); }
+        @Override public double getRecentP99Micros() { return recent().quantile(0.99) / 1e3; }
+    }
+
+    private static final Histogram EMPTY = new Histogram();
+
+    // Timer for an operation, created and registered with JMX on first use.
+    public static Timer timer(String name) {
+        Timer t = TIMERS.get(name);
+        if (t != null) return t;
+        Timer created = new Timer(name);
+        t = TIMERS.putIfAbsent(name, created);
+        if (t != null) return t;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(created,
+                    new ObjectName("hotel:type=Operation,name=" + ObjectName.quote(name)));
+        } catch (JMException | SecurityException e) {
+            // JMX unavailable; the timer still records and shows up in writeText()
+        }
+        return created;
+    }
+
+    public static Iterable<Timer> timers() {
+        return TIMERS.values();
+    }
+
+    // Prometheus text exposition format, latencies in seconds.
+    public static void writeText(Appendable out) throws IOException {
+        Map<String, Timer> timers = TIMERS;
+        out.append("# TYPE hotel_operation_calls_total counter\n");
+        for (Timer t : timers.values()) line(out, "hotel_operation_calls_total", t, null, t.histogram().count());
+        out.append("# TYPE hotel_operation_errors_total counter\n");
+        for (Timer t : timers.values()) line(out, "hotel_operation_errors_total", t, null, t.getErrors());
+        out.append("# TYPE hotel_operation_in_flight gauge\n");
+        for (Timer t : timers.values()) line(out, "hotel_operation_in_flight", t, null, t.getInFlight());
+        out.append("# TYPE hotel_operation_latency_seconds summary\n");
+        for (Timer t : timers.values()) {
+            Histogram h = t.histogram();
+            for (double q : QUANTILES) line(out, "hotel_operation_latency_seconds", t, q, h.quantile(q) / 1e9);
+            line(out, "hotel_operation_latency_seconds_sum", t, null, h.sum() / 1e9);
+            line(out, "hotel_operation_latency_seconds_count", t, null, h.count());
+        }
+        out.append("# TYPE hotel_operation_recent_latency_seconds gauge\n");
+        for (Timer t : timers.values()) {
+            Histogram h = t.recent();
+            for (double q : QUANTILES) line(out, "hotel_operation_recent_latency_seconds", t, q, h.quantile(q) / 1e9);
+        }
+    }
+
+    private static void line(Appendable out, String metric, Timer t, Double quantile, double value) throws IOException {
+        out.append(metric).append("{op=\"").append(t.name).append('"');
+        if (quantile != null) out.append(",quantile=\"").append(String.valueOf(quantile)).append('"');
+        out.append("} ");
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) out.append(String.valueOf((long) value));
+        else out.append(String.valueOf(value));
+        out.append('\n');
+    }
+}
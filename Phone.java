@@ -1,24 +1,57 @@
 public class Phone {
 	private final String unformattedNumber;
+	private final long packed; // PhoneNumbers packing of the first 10 chars, INVALID unless all digits
 	public Phone(String unformattedNumber) {
 		this.unformattedNumber = unformattedNumber;
+		this.packed = PhoneNumbers.packDigits(unformattedNumber, 0);
+	}
+	public Phone(long packed) {
+		if (!PhoneNumbers.isValid(packed)) throw new IllegalArgumentException("not a packed phone number: " + packed);
+		this.unformattedNumber = null; // getters read the packed fields instead
+		this.packed = packed;
+	}
+	public long packed() {
+		return packed;
 	}
 	public String getAreaCode() {
-		return unformattedNumber.substring(0,3);
+		if (unformattedNumber != null) return unformattedNumber.substring(0,3);
+		return zeroPad(PhoneNumbers.areaCode(packed), 3);
 	}
 	public String getPrefix() {
-		return unformattedNumber.substring(3,6);
+		if (unformattedNumber != null) return unformattedNumber.substring(3,6);
+		return zeroPad(PhoneNumbers.prefix(packed), 3);
 	}
 	public String getNumber() {
-		return unformattedNumber.substring(6,10);
+		if (unformattedNumber != null) return unformattedNumber.substring(6,10);
+		return zeroPad(PhoneNumbers.line(packed), 4);
+	}
+	// Fixed-width digits straight from the packed fields, no format string to parse.
+	private static String zeroPad(int value, int width) {
+		char[] out = new char[width];
+		for (int i = width - 1; i >= 0; i--, value /= 10) out[i] = (char) ('0' + value % 10);
+		return new String(out);
 	}
 }
-public class Customer {
+// package-private: one public top-level class per file, or javac rejects Phone.java
+class Customer {
 	private Phone mobilePhone;
+	public Customer() {
+	}
+	public Customer(Phone mobilePhone) {
+		this.mobilePhone = mobilePhone;
+	}
 	public String getMobilePhoneNumber() {
+		long p = mobilePhone.packed();
+		if (p != PhoneNumbers.INVALID) return PhoneNumbers.format(p); // one String instead of five
 		return "(" + 
 			mobilePhone.getAreaCode() + ") " +
 			mobilePhone.getPrefix() + "-" +
 			mobilePhone.getNumber();
 	}
+	// Same text into the caller's buffer, without allocating for digit-only numbers.
+	public StringBuilder appendMobilePhoneNumber(StringBuilder out) {
+		long p = mobilePhone.packed();
+		if (p != PhoneNumbers.INVALID) return PhoneNumbers.appendTo(p, out);
+		return out.append(getMobilePhoneNumber());
+	}
 }
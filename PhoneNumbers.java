@@ -0,0 +1,151 @@
+// File: PhoneNumbers.java
+// Purpose: 10-digit phone numbers packed into a long, formatted as "(AAA) PPP-LLLL"
+// without allocating.
+//
+// The packed value is just the ten digits read as a decimal number (area code *
+// 10^7 + prefix * 10^4 + line), so it sorts, compares and hashes as a long. The
+// three parts come back with divisions by constants, which the JIT turns into
+// multiplies. Formatting writes the 14 characters straight into the caller's
+// StringBuilder, Appendable, char[] or ByteBuffer (ASCII), so a confirmation or SMS
+// batch reuses one buffer instead of building five strings per number.
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+public final class PhoneNumbers {
+
+    public static final int FORMATTED_LENGTH = 14; // "(AAA) PPP-LLLL"
+    public static final long INVALID = -1;
+    private static final long MAX = 9_999_999_999L;
+
+    private PhoneNumbers() {
+    }
+
+    // Ten digits, optionally separated by spaces, '(', ')', '-' or '.'.
+    public static long parse(CharSequence s) {
+        long n = 0;
+        int digits = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 10) throw new IllegalArgumentException("more than 10 digits: " + s);
+                n = n * 10 + (c - '0');
+            } else if (c != ' ' && c != '(' && c != ')' && c != '-' && c != '.') {
+                throw new IllegalArgumentException("not a phone number: " + s);
+            }
+        }
+        if (digits != 10) throw new IllegalArgumentException("expected 10 digits: " + s);
+        return n;
+    }
+
+    // The ten characters at from.. as a packed number, or INVALID unless all are digits.
+    public static long packDigits(CharSequence s, int from) {
+        if (from < 0 || s.length() - from < 10) return INVALID;
+        long n = 0;
+        for (int i = from; i < from + 10; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return INVALID;
+            n = n * 10 + (c - '0');
+        }
+        return n;
+    }
+
+    public static long pack(int areaCode, int prefix, int line) {
+        if (areaCode < 0 || areaCode > 999 || prefix < 0 || prefix > 999 || line < 0 || line > 9999) {
+            throw new IllegalArgumentException("bad phone parts " + areaCode + "/" + prefix + "/" + line);
+        }
+        return areaCode * 10_000_000L + prefix * 10_000L + line;
+    }
+
+    public static boolean isValid(long packed) {
+        return packed >= 0 && packed <= MAX;
+    }
+
+    public static int areaCode(long packed) { return (int) (check(packed) / 10_000_000L); }
+    public static int prefix(long packed) { return (int) (check(packed) / 10_000L % 1000); }
+    public static int line(long packed) { return (int) (check(packed) % 10_000L); }
+
+    // One String; use the appendTo / write variants to avoid even that.
+    public static String format(long packed) {
+        char[] out = new char[FORMATTED_LENGTH];
+        write(packed, out, 0);
+        return new String(out);
+    }
+
+    public static StringBuilder appendTo(long packed, StringBuilder out) {
+        long n = check(packed);
+        for (int at = 0; at < FORMATTED_LENGTH; at++) out.append(charAt(n, at));
+        return out;
+    }
+
+    public static Appendable appendTo(long packed, Appendable out) throws IOException {
+        if (out instanceof StringBuilder) return appendTo(packed, (StringBuilder) out);
+        long n = check(packed);
+        for (int at = 0; at < FORMATTED_LENGTH; at++) out.append(charAt(n, at));
+        return out;
+    }
+
+    // Writes the 14 characters at out[at..]; returns the index after them.
+    public static int write(long packed, char[] out, int at) {
+        if (at < 0 || out.length - at < FORMATTED_LENGTH) throw new IndexOutOfBoundsException("no room at " + at);
+        long n = check(packed);
+        for (int i = 0; i < FORMATTED_LENGTH; i++) out[at + i] = charAt(n, i);
+        return at + FORMATTED_LENGTH;
+    }
+
+    // ASCII at the buffer's position, which moves past the 14 bytes.
+    public static ByteBuffer write(long packed, ByteBuffer out) {
+        if (out.remaining() < FORMATTED_LENGTH) throw new BufferOverflowException();
+        long n = check(packed);
+        int at = out.position();
+        for (int i = 0; i < FORMATTED_LENGTH; i++) out.put(at + i, (byte) charAt(n, i));
+        return out.position(at + FORMATTED_LENGTH);
+    }
+
+    // Bulk: numbers[from..to) formatted into out, each followed by separator.
+    // Grows out once for the whole batch.
+    public static StringBuilder formatAll(long[] numbers, int from, int to, char separator, StringBuilder out) {
+        out.ensureCapacity(out.length() + (to - from) * (FORMATTED_LENGTH + 1));
+        for (int i = from; i < to; i++) appendTo(numbers[i], out).append(separator);
+        return out;
+    }
+
+    // Bulk into a byte buffer (ASCII); checks the room for the whole batch first.
+    public static ByteBuffer formatAll(long[] numbers, int from, int to, byte separator, ByteBuffer out) {
+        if (out.remaining() < (long) (to - from) * (FORMATTED_LENGTH + 1)) throw new BufferOverflowException();
+        for (int i = from; i < to; i++) write(numbers[i], out).put(separator);
+        return out;
+    }
+
+    private static long check(long packed) {
+        if (!isValid(packed)) throw new IllegalArgumentException("not a packed phone number: " + packed);
+        return packed;
+    }
+
+    // The one layout every target writes: character `at` of "(AAA) PPP-LLLL" for the
+    // ten digits n. Callers loop over `at` with a constant bound; once the loop is
+    // unrolled every case divides by a constant, which the JIT turns into a multiply.
+    private static char charAt(long n, int at) {
+        switch (at) {
+            case 0: return '(';
+            case 1: return digit((int) (n / 1_000_000_000L));
+            case 2: return digit((int) (n / 100_000_000L % 10));
+            case 3: return digit((int) (n / 10_000_000L % 10));
+            case 4: return ')';
+            case 5: return ' ';
+            case 6: return digit((int) (n / 1_000_000L % 10));
+            case 7: return digit((int) (n / 100_000L % 10));
+            case 8: return digit((int) (n / 10_000L % 10));
+            case 9: return '-';
+            case 10: return digit((int) (n / 1_000L % 10));
+            case 11: return digit((int) (n / 100L % 10));
+            case 12: return digit((int) (n / 10L % 10));
+            default: return digit((int) (n % 10));
+        }
+    }
+
+    private static char digit(int d) {
+        return (char) ('0' + d);
+    }
+}
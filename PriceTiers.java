@@ -0,0 +1,106 @@
+// File: PriceTiers.java
+// Purpose: Configurable LOW / MID / HIGH price tiers for the Manager and GodBucket reports.
+//
+// Each of the two boundaries is either a fixed price or a quantile of a reference
+// price distribution: "HIGH is the top 10%" becomes quantiles(0.5, 0.9, ...). A
+// report resolves its boundaries once, before the first record, against the
+// sketch of all prices its owner reported earlier. Every record (and every
+// parallel chunk) therefore sees the same cut. Until there is history, a quantile
+// boundary uses its fallback price.
+
+public final class PriceTiers {
+
+    public static final class Boundary {
+        private final double price;    // fixed price, or the fallback of a quantile
+        private final double quantile; // NaN for a fixed price
+
+        private Boundary(double price, double quantile) {
+            this.price = price;
+            this.quantile = quantile;
+        }
+
+        public static Boundary price(double price) {
+            return new Boundary(price, Double.NaN);
+        }
+
+        public static Boundary quantile(double q, double fallback) {
+            if (!(q >= 0 && q <= 1)) throw new IllegalArgumentException("q must be in [0, 1]: " + q);
+            return new Boundary(fallback, q);
+        }
+
+        double resolve(QuantileSketch reference) {
+            if (Double.isNaN(quantile) || reference == null || reference.count() == 0) return price;
+            return reference.quantile(quantile);
+        }
+
+        @Override
+        public String toString() {
+            return Double.isNaN(quantile) ? Double.toString(price) : "p" + quantile * 100;
+        }
+    }
+
+    // Boundaries resolved to prices: above high is HIGH, else above mid is MID, else LOW.
+    public static final class Cut {
+        public final double mid, high;
+
+        Cut(double mid, double high) {
+            this.mid = mid;
+            this.high = high;
+        }
+
+        public ReportTier tier(double price) {
+            return price > high ? ReportTier.HIGH : price > mid ? ReportTier.MID : ReportTier.LOW;
+        }
+    }
+
+    private final Boundary mid, high;
+
+    private PriceTiers(Boundary mid, Boundary high) {
+        this.mid = mid;
+        this.high = high;
+    }
+
+    public static PriceTiers of(Boundary mid, Boundary high) {
+        return new PriceTiers(mid, high);
+    }
+
+    // Fixed prices: MID above mid, HIGH above high.
+    public static PriceTiers above(double mid, double high) {
+        return new PriceTiers(Boundary.price(mid), Boundary.price(high));
+    }
+
+    // MID above the qMid quantile, HIGH above the qHigh quantile of earlier prices.
+    public static PriceTiers quantiles(double qMid, double qHigh, double fallbackMid, double fallbackHigh) {
+        return new PriceTiers(Boundary.quantile(qMid, fallbackMid), Boundary.quantile(qHigh, fallbackHigh));
+    }
+
+    public Cut resolve(QuantileSketch reference) {
+        return new Cut(mid.resolve(reference), high.resolve(reference));
+    }
+
+    @Override
+    public String toString() {
+        return "mid>" + mid + " high>" + high;
+    }
+
+    // "price n=.. p50=.. p90=.. p99=.." over all tiers, then one such line per non-empty tier.
+    static void writeQuantiles(ReportWriter out, QuantileSketch[] byTier) {
+        QuantileSketch all = new QuantileSketch();
+        for (QuantileSketch s : byTier) all.merge(s);
+        writeQuantiles(out, "price", all);
+        for (ReportTier t : ReportTier.values()) {
+            if (byTier[t.ordinal()].count() > 0) writeQuantiles(out, t.name(), byTier[t.ordinal()]);
+        }
+    }
+
+    private static void writeQuantiles(ReportWriter out, String label, QuantileSketch s) {
+        out.append(label).append(" n=").append(s.count())
+           .append(" p50=").append(cents(s.quantile(0.5)))
+           .append(" p90=").append(cents(s.quantile(0.9)))
+           .append(" p99=").append(cents(s.quantile(0.99))).append("\n");
+    }
+
+    private static double cents(double v) {
+        return Double.isNaN(v) ? v : Math.round(v * 100) / 100.0;
+    }
+}
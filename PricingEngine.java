@@ -0,0 +1,255 @@
+// File: PricingEngine.java
+// Purpose: Declarative pricing rules compiled into a flat, allocation-free evaluator.
+//
+// A RuleSet lists policy factors, coupon campaigns, per-night room surcharges,
+// extras and an optional tax override. It is compiled once into plain arrays indexed
+// by Policy ordinal and room code, plus a CouponRegistry trie for the coupons, and
+// reload() swaps the compiled form through a volatile field, so quotes in flight
+// keep using the old rules and nobody blocks.
+//
+// Evaluation order matches DiscountCalculator.computeFinalAmount, so results are
+// bit-for-bit identical for the default rules (multiplying by 1.0 and adding 0.0
+// leave a double unchanged):
+//   price = base * policy * coupon; + extras; price + price * tax; + surcharge * nights
+
+import java.util.*;
+
+public class PricingEngine {
+
+    public enum Policy {
+        WEEKDAY, WEEKEND, LOYALTY, BLACK_FRIDAY, LAST_MINUTE;
+
+        private static final Map<String, Policy> BY_NAME = new HashMap<>();
+        static {
+            for (Policy p : values()) BY_NAME.put(p.name(), p);
+        }
+
+        // null for names that are not a policy (callers treat that as "no change")
+        public static Policy parse(String name) {
+            return name == null ? null : BY_NAME.get(name);
+        }
+    }
+
+    // Declarative rules; later calls for the same key replace earlier ones.
+    public static final class RuleSet {
+        private final EnumMap<Policy, Double> policies = new EnumMap<>(Policy.class);
+        private final LinkedHashMap<String, CouponRegistry.Campaign> coupons = new LinkedHashMap<>();
+        private final LinkedHashMap<String, Double> surcharges = new LinkedHashMap<>();
+        private double breakfast;
+        private double pickup;
+        private double taxOverride = Double.NaN;
+
+        public RuleSet policy(Policy p, double factor) { policies.put(p, factor); return this; }
+        // the longest matching prefix wins
+        public RuleSet coupon(String prefix, double factor) { return campaign(new CouponRegistry.Campaign(prefix, factor)); }
+        // coupon with a validity window and/or usage limit
+        public RuleSet campaign(CouponRegistry.Campaign c) { coupons.put(c.prefix, c); return this; }
+        public RuleSet roomSurcharge(String roomType, double perNight) { surcharges.put(roomType, perNight); return this; }
+        public RuleSet breakfast(double price) { breakfast = price; return this; }
+        public RuleSet airportPickup(double price) { pickup = price; return this; }
+        // replaces the booking's own tax rate, e.g. after a VAT change; NaN keeps it
+        public RuleSet taxOverride(double rate) { taxOverride = rate; return this; }
+
+        public double policyFactor(Policy p) { return policies.getOrDefault(p, 1.0); }
+        public double breakfastPrice() { return breakfast; }
+        public double airportPickupPrice() { return pickup; }
+        public double taxOverride() { return taxOverride; }
+        public Map<String, Double> roomSurcharges() { return Collections.unmodifiableMap(surcharges); }
+
+        public RuleSet copy() {
+            RuleSet r = new RuleSet();
+            r.policies.putAll(policies);
+            r.coupons.putAll(coupons);
+            r.surcharges.putAll(surcharges);
+            r.breakfast = breakfast;
+            r.pickup = pickup;
+            r.taxOverride = taxOverride;
+            return r;
+        }
+
+        // Rules used by HotelManager / DiscountCalculator.
+        public static RuleSet bookingDefaults() {
+            return new RuleSet()
+                    .policy(Policy.WEEKDAY, 1.0)
+                    .policy(Policy.WEEKEND, 1.10)
+                    .policy(Policy.LOYALTY, 0.90)
+                    .policy(Policy.LAST_MINUTE, 0.80)
+                    .coupon("VIP", 0.85)
+                    .coupon("LOYAL", 0.90)
+                    .roomSurcharge("SUITE", 40)
+                    .roomSurcharge("DELUXE", 25)
+                    .breakfast(12.5)
+                    .airportPickup(30);
+        }
+
+        // Policies used by the Manager / GodBucket reports (adds BLACK_FRIDAY).
+        public static RuleSet reportDefaults() {
+            return bookingDefaults().policy(Policy.BLACK_FRIDAY, 0.60);
+        }
+    }
+
+    // Immutable compiled form; one instance per reload.
+    private static final class Compiled {
+        final double[] policyFactor;     // by Policy ordinal, 1.0 when undefined
+        final CouponRegistry.Snapshot coupons;
+        final double[] surchargeByRoom;  // by room code, 0 when undefined
+        final double breakfast;
+        final double pickup;
+        final double taxOverride;
+        final RuleSet source;
+
+        Compiled(RuleSet rules, RoomCodes rooms, CouponRegistry registry) {
+            source = rules.copy();
+            policyFactor = new double[Policy.values().length];
+            Arrays.fill(policyFactor, 1.0);
+            for (Map.Entry<Policy, Double> e : rules.policies.entrySet()) {
+                policyFactor[e.getKey().ordinal()] = e.getValue();
+            }
+            coupons = registry.compile(rules.coupons.values());
+            for (String room : rules.surcharges.keySet()) rooms.code(room);
+            surchargeByRoom = new double[rooms.size()];
+            for (Map.Entry<String, Double> e : rules.surcharges.entrySet()) {
+                surchargeByRoom[rooms.code(e.getKey())] = e.getValue();
+            }
+            breakfast = rules.breakfast;
+            pickup = rules.pickup;
+            taxOverride = rules.taxOverride;
+        }
+    }
+
+    // Append-only room type dictionary shared by every compiled rule set, so a
+    // room code handed out once stays valid across reloads.
+    private static final class RoomCodes {
+        private volatile Map<String, Integer> codes = new HashMap<>();
+
+        int lookup(String room) {
+            Integer c = codes.get(room);
+            return c == null ? -1 : c;
+        }
+
+        synchronized int code(String room) {
+            Integer c = codes.get(room);
+            if (c != null) return c;
+            Map<String, Integer> next = new HashMap<>(codes);
+            int code = next.size();
+            next.put(room, code);
+            codes = next;
+            return code;
+        }
+
+        int size() { return codes.size(); }
+    }
+
+    private final RoomCodes rooms;
+    private final CouponRegistry coupons; // holds the usage counters shared across reloads
+    private volatile Compiled current;
+    private volatile long generation;
+
+    public PricingEngine(RuleSet rules) {
+        rooms = new RoomCodes();
+        coupons = new CouponRegistry();
+        current = new Compiled(rules, rooms, coupons);
+    }
+
+    private PricingEngine(RoomCodes rooms, CouponRegistry coupons, Compiled compiled) {
+        this.rooms = rooms;
+        this.coupons = coupons;
+        this.current = compiled;
+    }
+
+    // Engine frozen on the rules current right now; reloads of this engine do not
+    // reach it. Batch jobs use it so every booking is priced with the same rules.
+    public PricingEngine pinned() {
+        return new PricingEngine(rooms, coupons, current);
+    }
+
+    // Compiles off to the side, then publishes with a single volatile write.
+    public void reload(RuleSet rules) {
+        Compiled next = new Compiled(rules, rooms, coupons);
+        synchronized (this) {
+            current = next;
+            generation++;
+        }
+    }
+
+    // Bumped on every reload; lets caches notice that their entries are stale.
+    public long generation() { return generation; }
+
+    public RuleSet rules() { return current.source.copy(); }
+
+    // Code to pass to quote(); -1 (no surcharge) for room types the rules never mention.
+    public int roomCode(String roomType) {
+        return roomType == null ? -1 : rooms.lookup(roomType);
+    }
+
+    public double applyPolicy(Policy policy, double amount) {
+        return policy == null ? amount : amount * current.policyFactor[policy.ordinal()];
+    }
+
+    // Index of the coupon rule the code matches, or -1. Validity windows and usage
+    // limits are checked at the time of the call.
+    public int couponRule(String couponCode) {
+        return current.coupons.match(couponCode);
+    }
+
+    public double couponFactor(String couponCode) {
+        CouponRegistry.Snapshot c = current.coupons;
+        return c.factor(c.match(couponCode));
+    }
+
+    // Takes one use of the campaign the code matches (for limited campaigns) and
+    // returns the factor granted, 1.0 if none is left.
+    public double redeemCoupon(String couponCode) {
+        CouponRegistry.Campaign c = redeemCampaign(couponCode);
+        return c == null ? 1.0 : c.factor;
+    }
+
+    // The campaign that granted one use to the code, or null when no live campaign
+    // matches (unknown code, outside its window, or used up).
+    public CouponRegistry.Campaign redeemCampaign(String couponCode) {
+        return current.coupons.redeem(couponCode);
+    }
+
+    // Gives back a use taken by redeemCampaign.
+    public void releaseCoupon(CouponRegistry.Campaign c) {
+        if (c != null) coupons.release(c);
+    }
+
+    public double quote(Policy policy, int roomCode, int nights, double basePrice,
+                        boolean breakfast, boolean airportPickup, double taxRate, String couponCode) {
+        Compiled c = current;
+        return price(c, policy, roomCode, nights, basePrice, breakfast, airportPickup, taxRate,
+                c.coupons.factor(c.coupons.match(couponCode)));
+    }
+
+    // Same, with a coupon factor granted earlier instead of a code matched now.
+    public double quote(Policy policy, int roomCode, int nights, double basePrice,
+                        boolean breakfast, boolean airportPickup, double taxRate, double couponFactor) {
+        return price(current, policy, roomCode, nights, basePrice, breakfast, airportPickup, taxRate, couponFactor);
+    }
+
+    private static double price(Compiled c, Policy policy, int roomCode, int nights, double basePrice,
+                                boolean breakfast, boolean airportPickup, double taxRate, double couponFactor) {
+        double price = basePrice
+                * (policy == null ? 1.0 : c.policyFactor[policy.ordinal()])
+                * couponFactor;
+        price += breakfast ? c.breakfast : 0.0;
+        price += airportPickup ? c.pickup : 0.0;
+        double tax = Double.isNaN(c.taxOverride) ? taxRate : c.taxOverride;
+        price = price + price * tax;
+        double perNight = roomCode >= 0 && roomCode < c.surchargeByRoom.length ? c.surchargeByRoom[roomCode] : 0.0;
+        return price + perNight * nights;
+    }
+
+    // A stored booking is priced with the coupon factor it was granted when booked;
+    // one that never went through redemption (NaN) matches its code now.
+    public double quote(SmellyHotel.BookingData b) {
+        double granted = b.getCouponFactor();
+        if (Double.isNaN(granted)) {
+            return quote(null, roomCode(b.getRoomType()), b.getNights(), b.getBasePrice(), b.isBreakfast(),
+                    b.isAirportPickup(), b.getTaxRate(), b.getCouponCode());
+        }
+        return quote(null, roomCode(b.getRoomType()), b.getNights(), b.getBasePrice(), b.isBreakfast(),
+                b.isAirportPickup(), b.getTaxRate(), granted);
+    }
+}
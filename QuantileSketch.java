@@ -0,0 +1,179 @@
+// File: QuantileSketch.java
+// Purpose: Mergeable streaming quantile sketch for price distributions (p50 / p90 /
+// p99 per report segment) in one pass and bounded memory.
+//
+// Values go into log-linear buckets, as in Metrics.Histogram (and DDSketch). The
+// bucket index is the double's exponent plus its top SUB_BITS mantissa bits, read
+// straight off the bit pattern: no log() per value. Every power of two is split
+// into 128 buckets, so a quantile comes back within 0.4% of a value that really
+// has that rank. Negative values are kept in a mirrored store, and zeros counted
+// apart.
+// Each store holds at most maxBuckets contiguous buckets. If the range would
+// grow past that, the smallest-magnitude buckets are folded into the lowest one
+// kept, which costs accuracy only at the far low end.
+// Where a value ends up depends only on the largest index ever seen, so add() and
+// merge() give the same sketch in any order or grouping. That keeps
+// Manager.hugeReportParallel's per-chunk sketches equal to the sequential ones.
+// Unlike KLL or t-digest, no randomness or insertion order is involved.
+
+public class QuantileSketch {
+
+    private static final int SUB_BITS = 7;
+    private static final int SHIFT = 52 - SUB_BITS;
+    public static final int DEFAULT_MAX_BUCKETS = 4096;
+
+    private final int maxBuckets;
+    private final Store positive = new Store();
+    private final Store negative = new Store(); // by magnitude
+    private long zeros;
+    private long nonFinite; // NaN and infinities: counted, left out of quantiles
+    private double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+
+    public QuantileSketch() {
+        this(DEFAULT_MAX_BUCKETS);
+    }
+
+    public QuantileSketch(int maxBuckets) {
+        if (maxBuckets < 2) throw new IllegalArgumentException("maxBuckets must be >= 2");
+        this.maxBuckets = maxBuckets;
+    }
+
+    // Largest relative distance of a quantile from a value of that rank
+    // (before any low-end folding).
+    public static double relativeError() {
+        return 1.0 / (1 << (SUB_BITS + 1));
+    }
+
+    public QuantileSketch add(double x) {
+        if (!Double.isFinite(x)) {
+            nonFinite++;
+            return this;
+        }
+        if (x > 0) positive.add(index(x), 1, maxBuckets);
+        else if (x < 0) negative.add(index(-x), 1, maxBuckets);
+        else zeros++;
+        if (x < min) min = x;
+        if (x > max) max = x;
+        return this;
+    }
+
+    // Adds everything other has seen; other is left unchanged.
+    public QuantileSketch merge(QuantileSketch other) {
+        positive.addAll(other.positive, maxBuckets);
+        negative.addAll(other.negative, maxBuckets);
+        zeros += other.zeros;
+        nonFinite += other.nonFinite;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    public QuantileSketch copy() {
+        return new QuantileSketch(maxBuckets).merge(this);
+    }
+
+    // Finite values added.
+    public long count() {
+        return negative.total + zeros + positive.total;
+    }
+
+    public long nonFinite() { return nonFinite; }
+
+    // NaN while empty.
+    public double min() { return count() == 0 ? Double.NaN : min; }
+    public double max() { return count() == 0 ? Double.NaN : max; }
+
+    // Nearest rank, as in Metrics.Histogram: the value of 0-based rank
+    // ceil(q * count) - 1 (the minimum for q = 0), q in [0, 1]; NaN while empty.
+    public double quantile(double q) {
+        if (!(q >= 0 && q <= 1)) throw new IllegalArgumentException("q must be in [0, 1]: " + q);
+        long n = count();
+        if (n == 0) return Double.NaN;
+        long rank = Math.max(0, (long) Math.ceil(q * n) - 1);
+        double v;
+        if (rank < negative.total) {
+            v = -value(negative.indexOfRank(negative.total - 1 - rank));
+        } else if (rank < negative.total + zeros) {
+            v = 0.0;
+        } else {
+            v = value(positive.indexOfRank(rank - negative.total - zeros));
+        }
+        return Math.max(min, Math.min(max, v));
+    }
+
+    private static int index(double magnitude) {
+        return (int) (Double.doubleToRawLongBits(magnitude) >>> SHIFT);
+    }
+
+    // Midpoint of bucket i.
+    private static double value(int i) {
+        double lo = Double.longBitsToDouble((long) i << SHIFT);
+        double hi = Double.longBitsToDouble((long) (i + 1) << SHIFT);
+        return lo + (hi - lo) / 2;
+    }
+
+    // Counts for the contiguous bucket indices [lo, hi], held in counts from base on.
+    private static final class Store {
+        private long[] counts = new long[0];
+        private int base;
+        private int lo, hi;
+        long total;
+
+        void add(int idx, long n, int maxBuckets) {
+            if (total == 0) {
+                ensure(idx, idx, maxBuckets);
+                lo = hi = idx;
+            } else {
+                int newHi = Math.max(hi, idx);
+                int floor = newHi - maxBuckets + 1; // everything below folds into floor
+                if (idx < floor) idx = floor;
+                long folded = 0;
+                for (int i = lo, top = Math.min(hi, floor - 1); i <= top; i++) {
+                    folded += counts[i - base];
+                    counts[i - base] = 0;
+                }
+                int newLo = Math.min(Math.max(lo, floor), idx);
+                ensure(newLo, newHi, maxBuckets);
+                lo = newLo;
+                hi = newHi;
+                if (folded != 0) counts[lo - base] += folded; // lo == floor whenever anything folded
+            }
+            counts[idx - base] += n;
+            total += n;
+        }
+
+        void addAll(Store other, int maxBuckets) {
+            if (other.total == 0) return;
+            for (int i = other.lo; i <= other.hi; i++) {
+                long c = other.counts[i - other.base];
+                if (c != 0) add(i, c, maxBuckets);
+            }
+        }
+
+        // Bucket holding the value of 0-based rank r (ascending magnitude).
+        int indexOfRank(long r) {
+            long seen = 0;
+            for (int i = lo; i <= hi; i++) {
+                seen += counts[i - base];
+                if (seen > r) return i;
+            }
+            return hi;
+        }
+
+        // Makes room for [from, to], with slack for growth; at most maxBuckets long.
+        private void ensure(int from, int to, int maxBuckets) {
+            if (from >= base && to < base + counts.length) return;
+            int need = to - from + 1;
+            int len = Math.min(maxBuckets, Math.max(64, need * 2));
+            int newBase = Math.max(0, from - (len - need) / 2);
+            if (newBase + len <= to) newBase = to - len + 1;
+            long[] c = new long[len];
+            if (total > 0) {
+                int copyLo = Math.max(lo, newBase), copyHi = Math.min(hi, newBase + len - 1);
+                if (copyLo <= copyHi) System.arraycopy(counts, copyLo - base, c, copyLo - newBase, copyHi - copyLo + 1);
+            }
+            counts = c;
+            base = newBase;
+        }
+    }
+}
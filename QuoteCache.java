@@ -0,0 +1,379 @@
+// File: QuoteCache.java
+// Purpose: Bounded, concurrent cache of PricingEngine quotes for repeated search requests.
+//
+// Keys are three primitive longs: the raw bits of basePrice and taxRate, plus one
+// long packing room code, nights, matched coupon rule, extras flags and policy.
+// Coupons are keyed by the rule they match rather than by their text, so
+// VIP2025 and VIP2026 share an entry.
+//
+// Eviction is W-TinyLFU: a small LRU admission window in front of a segmented LRU
+// (probation + protected) main space. A count-min sketch of 4-bit counters, halved
+// periodically, estimates access frequency. An entry leaving the window only gets
+// into the main space if it is used more often than the entry it would push out.
+// Entries also expire a fixed time after they are written. The cache is split into
+// independently locked segments, and a PricingEngine reload empties it.
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class QuoteCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    public static final class Stats {
+        public final long hits, misses, evictions, expirations, invalidations, size;
+
+        Stats(long hits, long misses, long evictions, long expirations, long invalidations, long size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            this.invalidations = invalidations;
+            this.size = size;
+        }
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d misses=%d hitRate=%.3f evictions=%d expirations=%d invalidations=%d size=%d",
+                    hits, misses, hitRate(), evictions, expirations, invalidations, size);
+        }
+    }
+
+    private final PricingEngine engine;
+    private final long expireNanos;
+    private final Segment[] segments;
+    private final int segmentMask;
+    private volatile long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public QuoteCache(PricingEngine engine, int maximumSize, long expireAfterWrite, TimeUnit unit) {
+        if (maximumSize <= 0) throw new IllegalArgumentException("maximumSize must be > 0");
+        this.engine = engine;
+        this.expireNanos = unit.toNanos(expireAfterWrite);
+        int n = 1;
+        while (n < MAX_SEGMENTS && n * 64 <= maximumSize) n <<= 1;
+        segments = new Segment[n];
+        for (int i = 0; i < n; i++) segments[i] = new Segment(Math.max(1, maximumSize / n));
+        segmentMask = n - 1;
+        generation = engine.generation();
+    }
+
+    public double quote(SmellyHotel.BookingData b) {
+        return quote(null, b.getRoomType(), b.getNights(), b.getBasePrice(), b.isBreakfast(),
+                b.isAirportPickup(), b.getTaxRate(), b.getCouponCode());
+    }
+
+    public double quote(PricingEngine.Policy policy, String roomType, int nights, double basePrice,
+                        boolean breakfast, boolean airportPickup, double taxRate, String couponCode) {
+        long gen = checkGeneration();
+        int room = engine.roomCode(roomType);
+        int coupon = engine.couponRule(couponCode);
+        if (room >= 0xFFFF || coupon >= 0xFFFF || nights < 0 || nights > 0xFFFFFF) {
+            misses.increment(); // does not fit the packed key; price directly
+            return engine.quote(policy, room, nights, basePrice, breakfast, airportPickup, taxRate, couponCode);
+        }
+        long k0 = Double.doubleToRawLongBits(basePrice);
+        long k1 = Double.doubleToRawLongBits(taxRate);
+        long k2 = ((long) (room + 1) << 48)
+                | ((long) (coupon + 1) << 32)
+                | ((long) nights << 8)
+                | ((long) (policy == null ? 0 : policy.ordinal() + 1) << 2)
+                | (breakfast ? 2L : 0L)
+                | (airportPickup ? 1L : 0L);
+        long h = hash(k0, k1, k2);
+        Segment s = segments[(int) (h >>> 40) & segmentMask];
+        long now = System.nanoTime();
+        synchronized (s) {
+            Node node = s.find(k0, k1, k2, h);
+            if (node != null) {
+                if (now - node.writeNanos <= expireNanos) {
+                    s.onHit(node);
+                    hits.increment();
+                    return node.value;
+                }
+                s.remove(node);
+                expirations.increment();
+            }
+        }
+        misses.increment();
+        double value = engine.quote(policy, room, nights, basePrice, breakfast, airportPickup, taxRate, couponCode);
+        synchronized (s) {
+            // skip the insert if the rules were reloaded while we were pricing
+            if (engine.generation() == gen && s.find(k0, k1, k2, h) == null) {
+                evictions.add(s.insert(new Node(k0, k1, k2, h, value, now)));
+            }
+        }
+        return value;
+    }
+
+    public void invalidateAll() {
+        for (Segment s : segments) {
+            synchronized (s) {
+                s.clear();
+            }
+        }
+        invalidations.increment();
+    }
+
+    public Stats stats() {
+        long size = 0;
+        for (Segment s : segments) {
+            synchronized (s) {
+                size += s.count;
+            }
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), invalidations.sum(), size);
+    }
+
+    // Empties the cache once per rules reload; returns the generation now cached.
+    private long checkGeneration() {
+        long g = engine.generation();
+        if (g == generation) return g;
+        synchronized (this) {
+            if (g != generation) {
+                invalidateAll();
+                generation = g;
+            }
+        }
+        return g;
+    }
+
+    private static long hash(long k0, long k1, long k2) {
+        return mix(k0 ^ mix(k1 ^ mix(k2)));
+    }
+
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+
+    // ---------------------------------------------------------------- internals
+
+    private static final byte WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+
+    private static final class Node {
+        final long k0, k1, k2, hash;
+        final double value;
+        final long writeNanos;
+        byte queue;
+        Node chain;        // hash bucket
+        Node prev, next;   // access-order queue
+
+        Node(long k0, long k1, long k2, long hash, double value, long writeNanos) {
+            this.k0 = k0;
+            this.k1 = k1;
+            this.k2 = k2;
+            this.hash = hash;
+            this.value = value;
+            this.writeNanos = writeNanos;
+        }
+    }
+
+    // Intrusive LRU list with a sentinel; the head side is least recently used.
+    private static final class AccessQueue {
+        final Node sentinel = new Node(0, 0, 0, 0, 0, 0);
+        int size;
+
+        AccessQueue() {
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+        }
+
+        void addLast(Node n) {
+            n.prev = sentinel.prev;
+            n.next = sentinel;
+            sentinel.prev.next = n;
+            sentinel.prev = n;
+            size++;
+        }
+
+        void unlink(Node n) {
+            n.prev.next = n.next;
+            n.next.prev = n.prev;
+            n.prev = n.next = null;
+            size--;
+        }
+
+        void moveToLast(Node n) {
+            unlink(n);
+            addLast(n);
+        }
+
+        Node first() {
+            return sentinel.next == sentinel ? null : sentinel.next;
+        }
+
+        void clear() {
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            size = 0;
+        }
+    }
+
+    // Count-min sketch with four 4-bit counters per key, halved every sampleSize increments.
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {
+                0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+        private final long[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int n = 8;
+            while (n < capacity) n <<= 1;
+            table = new long[n];
+            mask = n - 1;
+            sampleSize = 10 * Math.max(capacity, 8);
+        }
+
+        int frequency(long h) {
+            int f = 15;
+            for (int d = 0; d < 4; d++) {
+                f = Math.min(f, (int) ((table[index(h, d)] >>> shift(h, d)) & 0xF));
+            }
+            return f;
+        }
+
+        void increment(long h) {
+            boolean added = false;
+            for (int d = 0; d < 4; d++) {
+                int i = index(h, d);
+                int sh = shift(h, d);
+                if (((table[i] >>> sh) & 0xF) != 0xF) {
+                    table[i] += 1L << sh;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) reset();
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+            additions >>>= 1;
+        }
+
+        private int index(long h, int d) {
+            long x = (h + SEEDS[d]) * SEEDS[d];
+            return (int) (x ^ (x >>> 32)) & mask;
+        }
+
+        private static int shift(long h, int d) {
+            return (int) ((h >>> (d << 3)) & 0xF) << 2;
+        }
+    }
+
+    private static final class Segment {
+        final Node[] table;
+        final AccessQueue window = new AccessQueue();
+        final AccessQueue probation = new AccessQueue();
+        final AccessQueue protectedQ = new AccessQueue();
+        final FrequencySketch sketch;
+        final int windowMax, mainMax, protectedMax;
+        int count;
+
+        Segment(int capacity) {
+            int n = 4;
+            while (n < capacity * 2) n <<= 1;
+            table = new Node[n];
+            windowMax = Math.max(1, capacity / 100);
+            mainMax = Math.max(1, capacity - windowMax);
+            protectedMax = Math.max(1, mainMax * 4 / 5);
+            sketch = new FrequencySketch(capacity);
+        }
+
+        Node find(long k0, long k1, long k2, long h) {
+            for (Node n = table[bucket(h)]; n != null; n = n.chain) {
+                if (n.hash == h && n.k0 == k0 && n.k1 == k1 && n.k2 == k2) return n;
+            }
+            return null;
+        }
+
+        void onHit(Node n) {
+            sketch.increment(n.hash);
+            if (n.queue == WINDOW) {
+                window.moveToLast(n);
+            } else if (n.queue == PROBATION) {
+                probation.unlink(n);
+                n.queue = PROTECTED;
+                protectedQ.addLast(n);
+                if (protectedQ.size > protectedMax) {
+                    Node demoted = protectedQ.first();
+                    protectedQ.unlink(demoted);
+                    demoted.queue = PROBATION;
+                    probation.addLast(demoted);
+                }
+            } else {
+                protectedQ.moveToLast(n);
+            }
+        }
+
+        // Adds a new entry through the window; returns how many entries were evicted.
+        int insert(Node n) {
+            sketch.increment(n.hash);
+            int b = bucket(n.hash);
+            n.chain = table[b];
+            table[b] = n;
+            n.queue = WINDOW;
+            window.addLast(n);
+            count++;
+            if (window.size <= windowMax) return 0;
+
+            Node candidate = window.first();
+            window.unlink(candidate);
+            candidate.queue = PROBATION;
+            probation.addLast(candidate);
+            if (probation.size + protectedQ.size <= mainMax) return 0;
+
+            // TinyLFU admission: the window's oldest entry competes with the main LRU victim
+            Node victim = probation.first();
+            if (victim == candidate) {
+                Node p = protectedQ.first();
+                if (p != null) victim = p;
+            }
+            Node evict = sketch.frequency(candidate.hash) > sketch.frequency(victim.hash) ? victim : candidate;
+            remove(evict);
+            return 1;
+        }
+
+        void remove(Node n) {
+            int b = bucket(n.hash);
+            Node prev = null;
+            for (Node c = table[b]; c != null; prev = c, c = c.chain) {
+                if (c == n) {
+                    if (prev == null) table[b] = c.chain;
+                    else prev.chain = c.chain;
+                    break;
+                }
+            }
+            if (n.queue == WINDOW) window.unlink(n);
+            else if (n.queue == PROBATION) probation.unlink(n);
+            else protectedQ.unlink(n);
+            count--;
+        }
+
+        void clear() {
+            Arrays.fill(table, null);
+            window.clear();
+            probation.clear();
+            protectedQ.clear();
+            count = 0;
+        }
+
+        private int bucket(long h) {
+            return (int) (h ^ (h >>> 32)) & (table.length - 1);
+        }
+    }
+}
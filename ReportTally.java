@@ -0,0 +1,54 @@
+// File: ReportTally.java
+// Purpose: Per-chunk results of Manager.hugeReport. merge() is associative and keeps input
+// order (left chunk first), so any split gives the sequential result. Of the log
+// lines only the count and the last TAIL (the ones the report prints) are kept.
+
+class ReportTally {
+    static final int TAIL = 10;
+    final ExactSum total = new ExactSum();
+    int hi, mid, lo;
+    int counterA, counterB, counterC;
+    long count;
+    final QuantileSketch[] prices = {new QuantileSketch(), new QuantileSketch(), new QuantileSketch()}; // by tier
+    private final ReportTier[] tiers = new ReportTier[TAIL]; // line at position p sits in slot p % TAIL
+    private final String[] ids = new String[TAIL];
+
+    void log(ReportTier tier, String id) {
+        int slot = (int) (count++ % TAIL);
+        tiers[slot] = tier;
+        ids[slot] = id;
+    }
+
+    int tailSize() {
+        return (int) Math.min(count, TAIL);
+    }
+
+    // j-th of the last tailSize() lines, oldest first
+    ReportTier tailTier(int j) {
+        return tiers[(int) ((count - tailSize() + j) % TAIL)];
+    }
+
+    String tailId(int j) {
+        return ids[(int) ((count - tailSize() + j) % TAIL)];
+    }
+
+    ReportTally merge(ReportTally right) {
+        total.merge(right.total);
+        hi += right.hi;
+        mid += right.mid;
+        lo += right.lo;
+        counterA += right.counterA;
+        counterB += right.counterB;
+        counterC += right.counterC;
+        for (int k = 0; k < prices.length; k++) prices[k].merge(right.prices[k]);
+        // right's lines go after ours; whatever they push out of the tail is older
+        int n = right.tailSize();
+        for (int j = 0; j < n; j++) {
+            int slot = (int) ((count + right.count - n + j) % TAIL);
+            tiers[slot] = right.tailTier(j);
+            ids[slot] = right.tailId(j);
+        }
+        count += right.count;
+        return this;
+    }
+}
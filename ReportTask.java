@@ -0,0 +1,49 @@
+// File: ReportTask.java
+// Purpose: Fork/join task for Manager.hugeReportParallel: splits its Spliterator until a
+// chunk is at most LEAF records, tallies the leaves and merges left into right.
+
+import java.util.Spliterator;
+import java.util.concurrent.RecursiveTask;
+
+class ReportTask extends RecursiveTask<ReportTally> {
+    private static final long serialVersionUID = 1L;
+    private static final long LEAF = 4096;
+
+    private final transient Manager manager;
+    private final transient CustomerCtx ctx;
+    private final transient PriceTiers.Cut cut;
+    private final long[] coins;            // rnd.nextBoolean() of record i is bit i
+    private final transient Spliterator<DataOnly> split;
+    private final long start;              // input index of the first record in split
+
+    ReportTask(Manager manager, CustomerCtx ctx, PriceTiers.Cut cut, long[] coins, Spliterator<DataOnly> split,
+               long start) {
+        this.manager = manager;
+        this.ctx = ctx;
+        this.cut = cut;
+        this.coins = coins;
+        this.split = split;
+        this.start = start;
+    }
+
+    @Override
+    protected ReportTally compute() {
+        if (split.estimateSize() > LEAF) {
+            Spliterator<DataOnly> prefix = split.trySplit();
+            if (prefix != null) {
+                ReportTask left = new ReportTask(manager, ctx, cut, coins, prefix, start);
+                ReportTask right = new ReportTask(manager, ctx, cut, coins, split, start + prefix.getExactSizeIfKnown());
+                left.fork();
+                ReportTally r = right.compute();
+                return left.join().merge(r);
+            }
+        }
+        ReportTally t = new ReportTally();
+        long[] i = {start};
+        split.forEachRemaining(r -> {
+            long k = i[0]++;
+            manager.tally(r, ctx, (coins[(int) (k >>> 6)] & (1L << k)) != 0, cut, t);
+        });
+        return t;
+    }
+}
@@ -0,0 +1,6 @@
+// File: ReportTier.java
+// Purpose: Price tier of a record in the Manager / GodBucket reports (event kind of their logs).
+
+public enum ReportTier {
+    LOW, MID, HIGH
+}
@@ -0,0 +1,83 @@
+// File: ReportWriter.java
+// Purpose: Chunked text sink for the ops / huge reports.
+//
+// Reports append into a small reusable buffer, which is handed to the target Writer
+// (or byte channel) whenever it reaches the chunk size. Peak memory is one chunk,
+// however long the report gets. The append methods never throw, so they can be
+// used inside visitors and lambdas. The first I/O error is kept and rethrown by
+// flush() / close(), and everything after it is dropped.
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+public class ReportWriter implements Flushable, Closeable {
+
+    public static final int DEFAULT_CHUNK = 8192;
+
+    private final Writer out;
+    private final StringBuilder buf;
+    private final int chunk;
+    private IOException error;
+
+    public ReportWriter(Writer out) {
+        this(out, DEFAULT_CHUNK);
+    }
+
+    public ReportWriter(Writer out, int chunkChars) {
+        this.out = out;
+        this.chunk = Math.max(256, chunkChars);
+        this.buf = new StringBuilder(chunk + 256);
+    }
+
+    // UTF-8 text straight onto a channel (socket, file, pipe).
+    public static ReportWriter to(WritableByteChannel channel) {
+        return new ReportWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+    }
+
+    public ReportWriter append(CharSequence s) { buf.append(s); return spill(); }
+    public ReportWriter append(Object o) { buf.append(o); return spill(); }
+    public ReportWriter append(char c) { buf.append(c); return spill(); }
+    public ReportWriter append(int v) { buf.append(v); return spill(); }
+    public ReportWriter append(long v) { buf.append(v); return spill(); }
+    public ReportWriter append(double v) { buf.append(v); return spill(); }
+
+    // Throws the first write error seen so far, if any.
+    public void checkError() throws IOException {
+        if (error != null) throw error;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        checkError();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private ReportWriter spill() {
+        if (buf.length() >= chunk) drain();
+        return this;
+    }
+
+    private void drain() {
+        if (buf.length() == 0) return;
+        if (error == null) {
+            try {
+                out.append(buf);
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        buf.setLength(0);
+    }
+}
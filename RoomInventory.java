@@ -0,0 +1,157 @@
+// File: RoomInventory.java
+// Purpose: Room availability per room type and night, with overbooking checks.
+//
+// Each room type has a ring of per-night slots covering a rolling horizon. A slot is
+// one long packing [epochDay << 20 | roomsTaken]. A slot stamped with an earlier
+// day belongs to a night that has already passed, so it reads as empty and the
+// next reservation takes it over. A stay is reserved one night at a time with a
+// CAS per slot; if any night is full, the nights already taken are given back.
+// There is no global lock. A check or reservation costs O(nights), no matter how
+// far ahead the horizon reaches or how many bookings exist.
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class RoomInventory {
+
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final int horizonDays;
+    private final DayClock days;
+    private final ConcurrentHashMap<String, RoomType> types = new ConcurrentHashMap<>();
+
+    private static final class RoomType {
+        final AtomicInteger capacity;
+        final AtomicLongArray nights;
+
+        RoomType(int capacity, int horizon) {
+            this.capacity = new AtomicInteger(capacity);
+            this.nights = new AtomicLongArray(horizon);
+        }
+    }
+
+    public RoomInventory(int horizonDays) {
+        this(horizonDays, Clock.systemDefaultZone());
+    }
+
+    public RoomInventory(int horizonDays, Clock clock) {
+        if (horizonDays < 2) throw new IllegalArgumentException("horizonDays must be >= 2");
+        this.horizonDays = horizonDays;
+        this.days = new DayClock(clock);
+    }
+
+    // Declares (or resizes) a room type. Shrinking below what is already booked only
+    // blocks new reservations.
+    public void setCapacity(String roomType, int rooms) {
+        if (rooms < 0 || rooms > COUNT_MASK) throw new IllegalArgumentException("rooms out of range: " + rooms);
+        RoomType t = types.putIfAbsent(roomType, new RoomType(rooms, horizonDays));
+        if (t != null) t.capacity.set(rooms);
+    }
+
+    public Set<String> roomTypes() {
+        return Collections.unmodifiableSet(types.keySet());
+    }
+
+    // Rooms of this type still free on the given night (0 for unknown types).
+    public int freeRooms(String roomType, LocalDate night) {
+        RoomType t = types.get(roomType);
+        if (t == null) return 0;
+        long day = night.toEpochDay();
+        checkWindow(day, 1);
+        return (int) Math.max(0, t.capacity.get() - taken(t.nights.get(slot(day)), day));
+    }
+
+    public boolean isAvailable(String roomType, LocalDate checkIn, int nights) {
+        RoomType t = types.get(roomType);
+        if (t == null || nights <= 0) return false;
+        long first = checkIn.toEpochDay();
+        checkWindow(first, nights);
+        int cap = t.capacity.get();
+        for (long d = first; d < first + nights; d++) {
+            if (taken(t.nights.get(slot(d)), d) >= cap) return false;
+        }
+        return true;
+    }
+
+    // Room types with at least one room free for the whole stay.
+    public List<String> availableRoomTypes(LocalDate checkIn, int nights) {
+        List<String> out = new ArrayList<>();
+        for (String type : types.keySet()) {
+            if (isAvailable(type, checkIn, nights)) out.add(type);
+        }
+        Collections.sort(out);
+        return out;
+    }
+
+    // Takes one room of the type for every night of the stay, or nothing at all.
+    public boolean reserve(String roomType, LocalDate checkIn, int nights) {
+        RoomType t = types.get(roomType);
+        if (t == null || nights <= 0) return false;
+        long first = checkIn.toEpochDay();
+        checkWindow(first, nights);
+        for (long d = first; d < first + nights; d++) {
+            if (!take(t, d)) {
+                for (long u = first; u < d; u++) give(t, u);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Gives back a stay taken by reserve(). Nights that already dropped out of the
+    // horizon are ignored.
+    public void release(String roomType, LocalDate checkIn, int nights) {
+        RoomType t = types.get(roomType);
+        if (t == null) return;
+        long first = checkIn.toEpochDay();
+        for (long d = first; d < first + nights; d++) give(t, d);
+    }
+
+    private boolean take(RoomType t, long day) {
+        int i = slot(day);
+        while (true) {
+            long v = t.nights.get(i);
+            long stamp = v >>> COUNT_BITS;
+            if (stamp > day) return false; // slot already reused by a later night
+            long taken = stamp == day ? v & COUNT_MASK : 0;
+            if (taken >= t.capacity.get()) return false;
+            if (t.nights.compareAndSet(i, v, (day << COUNT_BITS) | (taken + 1))) return true;
+        }
+    }
+
+    private void give(RoomType t, long day) {
+        int i = slot(day);
+        while (true) {
+            long v = t.nights.get(i);
+            if (v >>> COUNT_BITS != day || (v & COUNT_MASK) == 0) return;
+            if (t.nights.compareAndSet(i, v, v - 1)) return;
+        }
+    }
+
+    private static long taken(long slotValue, long day) {
+        return slotValue >>> COUNT_BITS == day ? slotValue & COUNT_MASK : 0;
+    }
+
+    private int slot(long day) {
+        return (int) Math.floorMod(day, (long) horizonDays);
+    }
+
+    // Nights must fall in [yesterday, yesterday + horizon) so that no two of them share a slot.
+    private void checkWindow(long first, int nights) {
+        long today = days.epochDay();
+        if (first < today - 1 || first + nights > today - 1 + horizonDays) {
+            throw new IllegalArgumentException("Stay outside the " + horizonDays + "-day booking horizon");
+        }
+    }
+
+    boolean inWindow(LocalDate checkIn, int nights) {
+        long today = days.epochDay();
+        long first = checkIn.toEpochDay();
+        return first >= today - 1 && first + nights <= today - 1 + horizonDays;
+    }
+}
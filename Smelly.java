@@ -4,6 +4,7 @@
 // - require public/static methods for Long Parameter List listing.
 // Smells: Feature Envy, God Class, Data Class, Long Method, Long Parameter List, Switch Statement.
 
+import java.io.*;
 import java.util.*;
 
 public class Smelly {
@@ -21,6 +22,45 @@ public class Smelly {
         public int loyalty;
     }
 
+    // ForeignA / ForeignB with country, city and room type as shared ValueDictionary codes.
+    static class EncodedForeignA {
+        public String id, name, email, coupon;
+        public int countryCode, cityCode, typeCode;
+        public int level;
+        public boolean vip;
+        public double balance, tax;
+
+        public static EncodedForeignA of(ForeignA a) {
+            EncodedForeignA e = new EncodedForeignA();
+            e.id = a.id; e.name = a.name; e.email = a.email; e.coupon = a.coupon;
+            e.countryCode = ValueDictionary.COUNTRIES.encode(a.country);
+            e.cityCode = ValueDictionary.CITIES.encode(a.city);
+            e.typeCode = ValueDictionary.ROOM_TYPES.encode(a.type);
+            e.level = a.level; e.vip = a.vip; e.balance = a.balance; e.tax = a.tax;
+            return e;
+        }
+
+        public String country() { return ValueDictionary.COUNTRIES.decode(countryCode); }
+        public String city() { return ValueDictionary.CITIES.decode(cityCode); }
+        public String type() { return ValueDictionary.ROOM_TYPES.decode(typeCode); }
+    }
+
+    static class EncodedForeignB {
+        public int countryCode, cityCode;
+        public int loyalty;
+
+        public static EncodedForeignB of(ForeignB b) {
+            EncodedForeignB e = new EncodedForeignB();
+            e.countryCode = ValueDictionary.COUNTRIES.encode(b.country);
+            e.cityCode = ValueDictionary.CITIES.encode(b.city);
+            e.loyalty = b.loyalty;
+            return e;
+        }
+
+        public String country() { return ValueDictionary.COUNTRIES.decode(countryCode); }
+        public String city() { return ValueDictionary.CITIES.decode(cityCode); }
+    }
+
     // --------------------------- DATA CLASS ---------------------------
     // Pure DTO: fields + getters/setters only (low WOC).
     static class PureDTO {
@@ -44,27 +84,66 @@ public class Smelly {
     // ---------------------------- GOD CLASS ---------------------------
     // Many responsibilities + high WMC + direct foreign attribute touches (ATFD).
     static class GodBucket {
-        List<String> logs = new ArrayList<>();
+        // tier + record id of every report line; bounded, old entries are overwritten
+        static final int LOG_EVENTS = 1 << 14;
+        final EventRing<ReportTier> events = new EventRing<>(LOG_EVENTS);
         Random rnd = new Random();
+        PriceTiers tiers = PriceTiers.above(300, 700);
+        boolean priceQuantiles; // true adds the p50/p90/p99 price lines to reports
+        private final QuantileSketch priceHistory = new QuantileSketch(); // every price reported so far
+        PricingEngine pricing = new PricingEngine(PricingEngine.RuleSet.reportDefaults());
+        private static final Metrics.Timer HUGE_REPORT = Metrics.timer("GodBucket.hugeReport");
 
-        // SWITCH statement (obvious)
+        // policy factors come from the compiled rules; unknown names leave the amount as is
         public double applyPolicy(String policy, double amount) {
-            switch (policy) {
-                case "WEEKDAY": return amount;
-                case "WEEKEND": return amount * 1.10;
-                case "LOYALTY": return amount * 0.90;
-                case "BLACK_FRIDAY": return amount * 0.60;
-                case "LAST_MINUTE": return amount * 0.80;
-                default: return amount;
+            return pricing.applyPolicy(PricingEngine.Policy.parse(policy), amount);
+        }
+
+        public double applyPolicy(PricingEngine.Policy policy, double amount) {
+            return pricing.applyPolicy(policy, amount);
+        }
+
+        // Distribution of every price reported so far (a copy).
+        public QuantileSketch priceSketch() {
+            synchronized (priceHistory) {
+                return priceHistory.copy();
             }
         }
 
-        // LONG METHOD (bloated intentionally) and many foreign field reads to raise ATFD.
         public String hugeReport(List<ForeignA> as, ForeignB b) {
-            StringBuilder sb = new StringBuilder();
+            StringWriter out = new StringWriter();
+            try {
+                hugeReport(as, b, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // a StringWriter does not fail
+            }
+            return out.toString();
+        }
+
+        public void hugeReport(List<ForeignA> as, ForeignB b, Writer out) throws IOException {
+            long t = HUGE_REPORT.start();
+            try {
+                writeReport(as, b, out);
+            } catch (IOException | RuntimeException e) {
+                HUGE_REPORT.failed();
+                throw e;
+            } finally {
+                HUGE_REPORT.stop(t);
+            }
+        }
+
+        // LONG METHOD (bloated intentionally) and many foreign field reads to raise ATFD.
+        // Streams to out in bounded chunks instead of building one big String.
+        private void writeReport(List<ForeignA> as, ForeignB b, Writer out) throws IOException {
+            ReportWriter sb = new ReportWriter(out);
             sb.append("=== Report ===\n");
             double total = 0;
             int hi=0, mid=0, lo=0;
+            PriceTiers.Cut cut;
+            synchronized (priceHistory) {
+                cut = tiers.resolve(priceHistory);
+            }
+            QuantileSketch[] prices = {new QuantileSketch(), new QuantileSketch(), new QuantileSketch()}; // by tier
 
             for (ForeignA r : as) {
                 // --- FEATURE ENVY style direct foreign accesses (lots of them) ---
@@ -72,10 +151,7 @@ public class Smelly {
                 if ("SUITE".equals(r.type)) p += 40 * r.level;
                 if ("DELUXE".equals(r.type)) p += 25 * r.level;
                 if (r.vip) p *= 0.95;
-                if (r.coupon != null && !r.coupon.isBlank()) {
-                    if (r.coupon.startsWith("VIP")) p *= 0.85;
-                    else if (r.coupon.startsWith("LOYAL")) p *= 0.90;
-                }
+                if (r.coupon != null) p *= pricing.couponFactor(r.coupon);
                 p = p + p * r.tax;
 
                 // use many fields from ForeignB as well (FDP >= 2)
@@ -90,13 +166,16 @@ public class Smelly {
                 if (r.country != null && r.country.length() > 2) p += 0.1;
                 if (r.name != null && r.name.length() > 1) p += 0.1;
 
-                // pick a policy via switch
-                p = applyPolicy(r.vip ? "LOYALTY" : "WEEKDAY", p);
+                // pick a policy by enum (no string hashing per record)
+                p = applyPolicy(r.vip ? PricingEngine.Policy.LOYALTY : PricingEngine.Policy.WEEKDAY, p);
 
                 total += p;
-                if (p > 700) { logs.add("HIGH:"+r.id); hi++; }
-                else if (p > 300) { logs.add("MID:"+r.id); mid++; }
-                else { logs.add("LOW:"+r.id); lo++; }
+                ReportTier tier = cut.tier(p);
+                if (tier == ReportTier.HIGH) hi++;
+                else if (tier == ReportTier.MID) mid++;
+                else lo++;
+                events.record(tier, Math.round(p * 100), r.id);
+                prices[tier.ordinal()].add(p);
 
                 // extra branches / loops to bloat WMC/LOC
                 if (rnd.nextBoolean()) {
@@ -106,27 +185,34 @@ public class Smelly {
                 }
             }
 
+            synchronized (priceHistory) {
+                for (QuantileSketch s : prices) priceHistory.merge(s);
+            }
             sb.append("hi=").append(hi).append(" mid=").append(mid).append(" lo=").append(lo).append("\n");
-            int start = Math.max(0, logs.size() - 10);
-            for (int i = start; i < logs.size(); i++) sb.append("LOG ").append(i).append(": ").append(logs.get(i)).append("\n");
+            if (priceQuantiles) PriceTiers.writeQuantiles(sb, prices);
+            events.forEachRecent(10, (seq, time, tier, cents, id) -> sb.append("LOG ").append(seq).append(": ")
+                    .append(tier.name()).append(':').append(id).append("\n"));
             // some filler to keep it long
             int acc = 0;
             for (int i = 0; i < 120; i++) acc += i % 4;
             sb.append("total=").append(total).append(" acc=").append(acc).append("\n");
-            return sb.toString();
+            sb.flush();
         }
     }
 
     // ---------------------- FEATURE ENVY (method-level) ----------------------
     // Standalone utility that greedily reads MANY foreign attributes from TWO different objects.
     static class EnvyCalc {
+        // envy scoring only ever honoured VIP codes
+        static final CouponRegistry VIP_ONLY = new CouponRegistry(List.of(new CouponRegistry.Campaign("VIP", 0.85)));
+
         public static double envy(ForeignA a, ForeignB b) {
             double p = a.balance;
             // read a LOT of foreign attributes (ATFD++)
             p += a.level * 10;
             if ("SUITE".equals(a.type)) p += 100;
             if (a.vip) p *= 0.95;
-            if (a.coupon != null) p *= a.coupon.startsWith("VIP") ? 0.85 : 1.0;
+            if (a.coupon != null) p *= VIP_ONLY.factor(a.coupon);
             if (a.email != null && a.email.endsWith(".fr")) p += 0.2;
             if ("France".equalsIgnoreCase(a.country)) p += 0.3;
             if ("Lille".equalsIgnoreCase(a.city)) p += 0.2;
@@ -136,6 +222,29 @@ public class Smelly {
             if (b.loyalty > 2) p *= 0.99;
             return p;
         }
+
+        // Codes of the values envy tests; comparing codes is equalsIgnoreCase
+        // (equals for the room type).
+        static final int FRANCE = ValueDictionary.COUNTRIES.encode("France");
+        static final int LILLE = ValueDictionary.CITIES.encode("Lille");
+        static final int PARIS = ValueDictionary.CITIES.encode("Paris");
+        static final int SUITE = ValueDictionary.ROOM_TYPES.encode("SUITE");
+
+        // Same score for encoded records: int compares instead of string tests.
+        public static double envy(EncodedForeignA a, EncodedForeignB b) {
+            double p = a.balance;
+            p += a.level * 10;
+            if (a.typeCode == SUITE) p += 100;
+            if (a.vip) p *= 0.95;
+            if (a.coupon != null) p *= VIP_ONLY.factor(a.coupon);
+            if (a.email != null && a.email.endsWith(".fr")) p += 0.2;
+            if (a.countryCode == FRANCE) p += 0.3;
+            if (a.cityCode == LILLE) p += 0.2;
+            if (b.countryCode == FRANCE) p += 0.4;
+            if (b.cityCode == PARIS) p += 0.1;
+            if (b.loyalty > 2) p *= 0.99;
+            return p;
+        }
     }
 
     // --------------------- LONG PARAMETER LIST (public static) ---------------------
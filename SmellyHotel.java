@@ -1,21 +1,53 @@
 // File: SmellyHotel.java
 // Purpose: Deliberately contains common code smells for static analyzers.
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 public class SmellyHotel {
 
     // --- GOD CLASS smell: does everything (I/O, parsing, business logic, reporting) ---
     // Also contains a LONG METHOD and a SWITCH STATEMENT.
-    static class HotelManager {
+    static class HotelManager implements AutoCloseable {
+        private static final long COMPACT_AFTER_BYTES = 64L << 20;
+        private static final int AUDIT_EVENTS = 4096; // most recent events kept for the report
+        private static final int DUMP_PAGE = 512;
+
+        private static final Metrics.Timer CREATE_BOOKING = Metrics.timer("HotelManager.createBooking");
+        private static final Metrics.Timer APPLY_PRICING = Metrics.timer("HotelManager.applyPricingStrategy");
+        private static final Metrics.Timer OPS_REPORT = Metrics.timer("HotelManager.generateOperationsReport");
+
         private String dbUrl = "jdbc:mysql://localhost/hotel";     // pretend DB
         private String httpEndpoint = "https://api.example.com";   // pretend HTTP
-        private Map<String, BookingData> cache = new HashMap<>();
-        private List<String> logs = new ArrayList<>();
+        private final BookingStore store = new BookingStore();
+        private final BookingAggregates totals = new BookingAggregates(this::reportRevenue);
+        private final PricingEngine pricing = new PricingEngine(PricingEngine.RuleSet.bookingDefaults());
+        private final QuoteCache quotes = new QuoteCache(pricing, 100_000, 10, TimeUnit.MINUTES);
+        private final BookingJournal journal; // null when bookings live on the heap only
+        private final AuditLog audit = new AuditLog(AUDIT_EVENTS);
+        private final StringInterner roomTypes = new StringInterner(1024);
+        private final StringInterner couponCodes = new StringInterner(1 << 16);
+        private final DayClock days = new DayClock();
+        private final LogTailer tailer = new LogTailer();
+        private volatile RoomInventory inventory; // null: room counts are not enforced
+
+        public HotelManager() {
+            journal = null;
+        }
+
+        // Durable mode: replays the journal in journalDir to rebuild the store.
+        public HotelManager(Path journalDir) throws IOException {
+            journal = BookingJournal.open(journalDir);
+            journal.replay(b -> totals.replaced(store.put(b), b), id -> totals.replaced(store.remove(id), null));
+            journal.enableCompaction(store, COMPACT_AFTER_BYTES);
+        }
 
         // LONG PARAMETER LIST smell (10 params):
         public BookingData createBooking(
@@ -30,114 +62,363 @@ public class SmellyHotel {
                 double taxRate,
                 String couponCode
         ) {
-            BookingData b = new BookingData();
-            b.setCustomerName(customerName);
-            b.setPhone(phone);
-            b.setAddress(address);
-            b.setRoomType(roomType);
-            b.setNights(nights);
-            b.setBreakfast(breakfast);
-            b.setAirportPickup(airportPickup);
-            b.setBasePrice(basePrice);
-            b.setTaxRate(taxRate);
-            b.setCouponCode(couponCode);
-            b.setCreatedAt(LocalDate.now());
-            cache.put(customerName + "-" + System.nanoTime(), b);
-            logs.add("Created booking for " + customerName);
-            return b;
+            long t = CREATE_BOOKING.start();
+            try {
+                BookingData b = new BookingData();
+                b.setCustomerName(customerName);
+                b.setPhone(phone);
+                b.setAddress(address);
+                b.setRoomType(roomTypes.intern(roomType));
+                b.setNights(nights);
+                b.setBreakfast(breakfast);
+                b.setAirportPickup(airportPickup);
+                b.setBasePrice(basePrice);
+                b.setTaxRate(taxRate);
+                b.setCreatedAt(days.today());
+                RoomInventory inv = inventory;
+                if (inv != null && !inv.reserve(roomType, b.getCreatedAt(), nights)) {
+                    throw new IllegalStateException("No " + roomType + " available for " + nights
+                            + " nights from " + b.getCreatedAt());
+                }
+                CouponRegistry.Campaign granted = redeem(b, couponCode);
+                totals.added(b); // before the store makes it visible to cancelBooking
+                store.add(b);
+                if (journal != null) {
+                    try {
+                        journal.appendPut(b); // returns once the batch holding it is on disk
+                    } catch (IOException e) {
+                        if (store.remove(b.getId()) == b) {
+                            totals.removed(b);
+                            if (inv != null) inv.release(roomType, b.getCreatedAt(), nights);
+                        }
+                        pricing.releaseCoupon(granted);
+                        throw new UncheckedIOException("Booking not persisted", e);
+                    }
+                }
+                audit.record(AuditLog.Kind.BOOKING_CREATED, b.getId(), customerName);
+                return b;
+            } catch (RuntimeException e) {
+                CREATE_BOOKING.failed();
+                throw e;
+            } finally {
+                CREATE_BOOKING.stop(t);
+            }
+        }
+
+        // Takes one use of the coupon's campaign and fixes the booking's price with the
+        // factor granted, so later quotes do not depend on how many uses are left. The
+        // code is kept as entered; a code no live campaign grants (unknown, expired,
+        // used up) gets factor 1.0.
+        private CouponRegistry.Campaign redeem(BookingData b, String couponCode) {
+            CouponRegistry.Campaign granted = pricing.redeemCampaign(couponCode);
+            b.setCouponCode(couponCode == null ? null : couponCodes.intern(couponCode));
+            b.setCouponFactor(granted == null ? 1.0 : granted.factor);
+            b.setFinalAmount(pricing.quote(b));
+            return granted;
         }
 
-        // SWITCH STATEMENT smell (polymorphism would be better):
+        // Unknown strategies leave the amount unchanged. Hot callers should use the
+        // Policy overload, which skips the name lookup.
         public double applyPricingStrategy(String strategy, double amount) {
-            switch (strategy) {
-                case "WEEKEND":
-                    return amount * 1.10;
-                case "WEEKDAY":
-                    return amount;
-                case "LOYALTY":
-                    return amount * 0.90;
-                case "LAST_MINUTE":
-                    return amount * 0.80;
-                default:
-                    return amount;
+            long t = APPLY_PRICING.start();
+            try {
+                return pricing.applyPolicy(PricingEngine.Policy.parse(strategy), amount);
+            } finally {
+                APPLY_PRICING.stop(t);
+            }
+        }
+
+        public double applyPricingStrategy(PricingEngine.Policy strategy, double amount) {
+            long t = APPLY_PRICING.start();
+            try {
+                return pricing.applyPolicy(strategy, amount);
+            } finally {
+                APPLY_PRICING.stop(t);
             }
         }
 
+        // Cached final price for a search request; same result as DiscountCalculator.
+        public double quote(String roomType, int nights, double basePrice, boolean breakfast,
+                            boolean airportPickup, double taxRate, String couponCode) {
+            return quotes.quote(null, roomType, nights, basePrice, breakfast, airportPickup, taxRate, couponCode);
+        }
+
+        public QuoteCache.Stats quoteCacheStats() {
+            return quotes.stats();
+        }
+
+        // Live pricing rules; reload() them to change policies, coupons or surcharges.
+        public PricingEngine pricing() {
+            return pricing;
+        }
+
         // LONG METHOD smell: does too many things and too many steps.
         public String generateOperationsReport(String localFilePath) {
-            StringBuilder sb = new StringBuilder();
+            return generateOperationsReport(localFilePath, false);
+        }
+
+        // incremental=true only reads what was appended since the previous report
+        // for the same file and keeps the ERROR/WARN totals across calls.
+        public String generateOperationsReport(String localFilePath, boolean incremental) {
+            StringWriter out = new StringWriter();
+            try {
+                writeOperationsReport(out, localFilePath, incremental, 0, Long.MAX_VALUE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // a StringWriter does not fail
+            }
+            return out.toString();
+        }
+
+        // Streams the report in bounded chunks, so memory does not grow with the
+        // number of bookings. The cache dump lists bookings in id order, skipping
+        // dumpOffset of them and printing at most dumpLimit (0 leaves the dump empty).
+        public void writeOperationsReport(Writer target, String localFilePath, boolean incremental,
+                                          long dumpOffset, long dumpLimit) throws IOException {
+            long t = OPS_REPORT.start();
+            try {
+                writeReport(target, localFilePath, incremental, dumpOffset, dumpLimit);
+            } catch (IOException | RuntimeException e) {
+                OPS_REPORT.failed();
+                throw e;
+            } finally {
+                OPS_REPORT.stop(t);
+            }
+        }
+
+        private void writeReport(Writer target, String localFilePath, boolean incremental,
+                                 long dumpOffset, long dumpLimit) throws IOException {
+            ReportWriter sb = new ReportWriter(target);
             sb.append("=== Hotel Daily Ops Report ===\n");
             sb.append("DB: ").append(dbUrl).append("\n");
             sb.append("HTTP: ").append(httpEndpoint).append("\n");
-            sb.append("Cache size: ").append(cache.size()).append("\n");
+            sb.append("Cache size: ").append(store.size()).append("\n");
 
             // pointless repeated logic to inflate length (still valid Java)
-            int totalLines = 0;
-            try (BufferedReader br = new BufferedReader(new FileReader(localFilePath))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    totalLines++;
-                    if (line.contains("ERROR")) logs.add("Found error line: " + line);
-                    if (line.contains("WARN")) logs.add("Found warn line: " + line);
+            long totalLines = 0, errorLines = 0, warnLines = 0;
+            try {
+                Path logPath = Paths.get(localFilePath);
+                LogScanner.ScanResult scan = incremental ? tailer.poll(logPath) : LogScanner.scan(logPath);
+                totalLines = scan.totalLines;
+                errorLines = scan.errorLines;
+                warnLines = scan.warnLines;
+                for (LogScanner.Match m : scan.matches) {
+                    audit.record(m.error ? AuditLog.Kind.ERROR_LINE : AuditLog.Kind.WARN_LINE, 0, m.line);
                 }
             } catch (IOException e) {
-                logs.add("IO problem: " + e.getMessage());
+                audit.record(AuditLog.Kind.IO_PROBLEM, 0, e.getMessage());
             }
 
-            sb.append("Scanned file: ").append(localFilePath).append(" lines=").append(totalLines).append("\n");
+            sb.append("Scanned file: ").append(localFilePath).append(" lines=").append(totalLines)
+              .append(" errors=").append(errorLines).append(" warns=").append(warnLines).append("\n");
 
             // do some arbitrary “business rules”
-            double rev = 0.0;
-            int breakfasts = 0;
-            int pickups = 0;
-            for (BookingData b : cache.values()) {
-                double price = b.getBasePrice();
-                price = applyPricingStrategy("WEEKDAY", price);
-                if (b.isBreakfast()) { price += 12.5; breakfasts++; }
-                if (b.isAirportPickup()) { price += 30; pickups++; }
-                // tax calc repeated on purpose
-                price = price + (price * b.getTaxRate());
-                rev += price;
-            }
-
-            sb.append("Breakfasts: ").append(breakfasts).append("\n");
-            sb.append("Airport pickups: ").append(pickups).append("\n");
-            sb.append("Revenue (approx): ").append(rev).append("\n");
+            // totals are maintained on every create/cancel, so reading them is O(1)
+            sb.append("Breakfasts: ").append(totals.breakfasts()).append("\n");
+            sb.append("Airport pickups: ").append(totals.pickups()).append("\n");
+            sb.append("Revenue (approx): ").append(totals.revenue()).append("\n");
 
             // useless steps to stretch the method
-            List<String> lastFiveLogs = logs.subList(Math.max(0, logs.size() - 5), logs.size());
+            List<String> lastFiveLogs = audit.lastMessages(5);
             for (String l : lastFiveLogs) {
                 sb.append("LOG> ").append(l).append("\n");
             }
 
             // more arbitrary formatting to keep it long
             sb.append("-- Cache dump --\n");
-            for (Map.Entry<String, BookingData> e : cache.entrySet()) {
-                BookingData b = e.getValue();
-                sb.append(e.getKey()).append(" => ")
-                  .append(b.getCustomerName()).append(" | ")
-                  .append(b.getRoomType()).append(" | ")
-                  .append(b.getNights()).append(" nights | ")
-                  .append(b.getBasePrice()).append("\n");
+            long skipped = 0, written = 0;
+            long after = 0;
+            while (written < dumpLimit) {
+                List<BookingData> page = store.page(after, DUMP_PAGE);
+                if (page.isEmpty()) break;
+                for (BookingData b : page) {
+                    after = b.getId();
+                    if (skipped < dumpOffset) { skipped++; continue; }
+                    if (written == dumpLimit) break;
+                    written++;
+                    sb.append(b.getId()).append(" => ")
+                      .append(b.getCustomerName()).append(" | ")
+                      .append(b.getRoomType()).append(" | ")
+                      .append(b.getNights()).append(" nights | ")
+                      .append(b.getBasePrice()).append("\n");
+                }
+                sb.checkError(); // stop early if the client went away
             }
 
-            // even more artificial steps
+            // even more artificial steps (counts come from the live aggregates)
             List<String> rooms = Arrays.asList("SINGLE","DOUBLE","SUITE","DELUXE","ECONOMY");
-            Map<String, Integer> roomCounts = new HashMap<>();
-            for (String r : rooms) roomCounts.put(r, 0);
-            for (BookingData b : cache.values()) {
-                roomCounts.put(b.getRoomType(), roomCounts.getOrDefault(b.getRoomType(), 0) + 1);
-            }
-            for (Map.Entry<String, Integer> rc : roomCounts.entrySet()) {
+            Map<String, Long> roomCounts = totals.roomCounts();
+            for (String r : rooms) roomCounts.putIfAbsent(r, 0L);
+            for (Map.Entry<String, Long> rc : roomCounts.entrySet()) {
                 sb.append("Room ").append(rc.getKey()).append(": ").append(rc.getValue()).append("\n");
             }
 
-            return sb.toString();
+            sb.flush();
+        }
+
+        // Inserts already-validated bookings as one batch: one lock per store stripe
+        // and a single journal commit for the whole batch. Returns the bookings left
+        // out because no room was free (always empty without an inventory).
+        public List<BookingData> insertBatch(List<BookingData> batch) {
+            if (batch.isEmpty()) return Collections.emptyList();
+            LocalDate today = days.today();
+            RoomInventory inv = inventory;
+            List<BookingData> accepted = batch;
+            List<BookingData> full = new ArrayList<>();
+            if (inv != null) accepted = new ArrayList<>(batch.size());
+            for (BookingData b : batch) {
+                if (b.getCreatedAt() == null) b.setCreatedAt(today);
+                b.setRoomType(roomTypes.intern(b.getRoomType()));
+                if (inv != null) {
+                    if (reserveQuietly(inv, b)) accepted.add(b);
+                    else full.add(b);
+                }
+            }
+            List<CouponRegistry.Campaign> granted = new ArrayList<>();
+            for (BookingData b : accepted) { // usage limits apply to imports too
+                CouponRegistry.Campaign c = redeem(b, b.getCouponCode());
+                if (c != null) granted.add(c);
+            }
+            for (BookingData b : accepted) totals.added(b); // before cancelBooking can see them
+            store.addAll(accepted);
+            if (journal != null) {
+                try {
+                    journal.appendPutAll(accepted);
+                } catch (IOException e) {
+                    for (BookingData b : accepted) {
+                        if (store.remove(b.getId()) != b) continue;
+                        totals.removed(b);
+                        if (inv != null) inv.release(b.getRoomType(), b.getCreatedAt(), b.getNights());
+                    }
+                    for (CouponRegistry.Campaign c : granted) pricing.releaseCoupon(c);
+                    throw new UncheckedIOException("Batch not persisted", e);
+                }
+            }
+            audit.record(AuditLog.Kind.BOOKINGS_IMPORTED, accepted.size(), null);
+            return full;
+        }
+
+        // Starts enforcing room counts. Bookings already stored whose stay is still
+        // inside the horizon are counted first; returns how many of those did not fit.
+        public int attachInventory(RoomInventory inv) {
+            int[] overbooked = new int[1];
+            store.forEach((id, b) -> {
+                if (b.getCreatedAt() != null && inv.inWindow(b.getCreatedAt(), b.getNights())
+                        && !inv.reserve(b.getRoomType(), b.getCreatedAt(), b.getNights())) {
+                    overbooked[0]++;
+                }
+            });
+            inventory = inv;
+            return overbooked[0];
+        }
+
+        public RoomInventory inventory() {
+            return inventory;
+        }
+
+        private static boolean reserveQuietly(RoomInventory inv, BookingData b) {
+            try {
+                return inv.reserve(b.getRoomType(), b.getCreatedAt(), b.getNights());
+            } catch (IllegalArgumentException e) {
+                return false; // stay outside the horizon
+            }
+        }
+
+        // Reprices every stored booking in parallel with the current rules and stores
+        // the result in BookingData.finalAmount, journaled in one commit so the amounts
+        // survive a restart. Returns the number of bookings repriced.
+        public int repriceAll() {
+            List<BookingData> all = new ArrayList<>(store.size());
+            store.forEach((id, b) -> all.add(b));
+            BatchRepricer.reprice(all, pricing, true);
+            if (journal != null) {
+                try {
+                    journal.appendPutAll(all);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Repriced amounts not persisted", e);
+                }
+            }
+            return all.size();
+        }
+
+        // What one booking contributes to the report's revenue line.
+        private double reportRevenue(BookingData b) {
+            double price = b.getBasePrice();
+            price = pricing.applyPolicy(PricingEngine.Policy.WEEKDAY, price); // untimed: internal call
+            if (b.isBreakfast()) price += 12.5;
+            if (b.isAirportPickup()) price += 30;
+            // tax calc repeated on purpose
+            return price + (price * b.getTaxRate());
+        }
+
+        // Removes the booking and takes it out of the live totals; null if unknown.
+        // With a journal the REMOVE is made durable first and the booking leaves the
+        // store afterwards, so a compaction snapshot never misses a live booking. A
+        // booking whose PUT is not journaled yet is still being created: cancelling it
+        // returns null, so createBooking never reports a booking it lost to a cancel.
+        public BookingData cancelBooking(long id) {
+            BookingData b;
+            if (journal == null) {
+                b = store.remove(id);
+            } else {
+                b = store.get(id);
+                if (b == null) return null;
+                try {
+                    if (!journal.appendRemove(b)) return null; // being created, or a concurrent cancel got it
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cancellation not persisted", e);
+                }
+                store.remove(id);
+            }
+            if (b == null) return null;
+            totals.removed(b);
+            RoomInventory inv = inventory;
+            if (inv != null && b.getCreatedAt() != null && inv.inWindow(b.getCreatedAt(), b.getNights())) {
+                inv.release(b.getRoomType(), b.getCreatedAt(), b.getNights());
+            }
+            audit.record(AuditLog.Kind.BOOKING_CANCELLED, id, null);
+            return b;
+        }
+
+        // Columnar copy of the current bookings for bulk revenue/tax/surcharge runs,
+        // with the extras and surcharges of the current pricing rules.
+        public ColumnarBookings columnarSnapshot() {
+            return ColumnarBookings.of(store, pricing);
+        }
+
+        // Structured events (bookings created / cancelled / imported, scanned log lines).
+        public AuditLog audit() {
+            return audit;
+        }
+
+        public int bookingCount() {
+            return store.size();
+        }
+
+        public BookingData findBooking(long id) {
+            return store.get(id);
+        }
+
+        public List<BookingData> findBookingsByCustomer(String customerName) {
+            return store.findByCustomer(customerName);
+        }
+
+        public List<BookingData> findBookingsByRoomType(String roomType) {
+            return store.findByRoomType(roomType);
+        }
+
+        public List<BookingData> findBookingsCreatedBetween(LocalDate from, LocalDate to) {
+            return store.findByCreatedAt(from, to);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (journal != null) journal.close();
         }
     }
 
     // DATA CLASS smell: just fields + getters/setters, no real behavior.
     static class BookingData {
+        private long id;
         private String customerName;
         private String phone;
         private String address;
@@ -149,7 +430,16 @@ public class SmellyHotel {
         private double taxRate;
         private String couponCode;
         private LocalDate createdAt;
+        private double finalAmount;
+        private double couponFactor = Double.NaN; // granted when booked; NaN: not redeemed
+        private double reportedRevenue; // what BookingAggregates added for it
+        // BookingJournal sequence of the PUT that first made it durable and of its
+        // REMOVE; 0 while there is none
+        private volatile long journalSeq;
+        private volatile long removedSeq;
 
+        public long getId() { return id; }
+        public void setId(long id) { this.id = id; }
         public String getCustomerName() { return customerName; }
         public void setCustomerName(String customerName) { this.customerName = customerName; }
         public String getPhone() { return phone; }
@@ -172,25 +462,40 @@ public class SmellyHotel {
         public void setCouponCode(String couponCode) { this.couponCode = couponCode; }
         public LocalDate getCreatedAt() { return createdAt; }
         public void setCreatedAt(LocalDate createdAt) { this.createdAt = createdAt; }
+        public double getFinalAmount() { return finalAmount; }
+        public void setFinalAmount(double finalAmount) { this.finalAmount = finalAmount; }
+        public double getCouponFactor() { return couponFactor; }
+        public void setCouponFactor(double couponFactor) { this.couponFactor = couponFactor; }
+        double getReportedRevenue() { return reportedRevenue; }
+        void setReportedRevenue(double reportedRevenue) { this.reportedRevenue = reportedRevenue; }
+        long getJournalSeq() { return journalSeq; }
+        void setJournalSeq(long journalSeq) { this.journalSeq = journalSeq; }
+        long getRemovedSeq() { return removedSeq; }
+        void setRemovedSeq(long removedSeq) { this.removedSeq = removedSeq; }
     }
 
-    // FEATURE ENVY smell: this logic clearly "envies" BookingData (uses many getters)
-    // and should probably live inside BookingData.
+    // Final amount for a booking: coupon, extras, tax and room surcharge, all taken
+    // from the compiled rules of a PricingEngine.
     static class DiscountCalculator {
+        private static final Metrics.Timer FINAL_AMOUNT = Metrics.timer("DiscountCalculator.computeFinalAmount");
+
+        private final PricingEngine engine;
+
+        public DiscountCalculator() {
+            this(new PricingEngine(PricingEngine.RuleSet.bookingDefaults()));
+        }
+
+        public DiscountCalculator(PricingEngine engine) {
+            this.engine = engine;
+        }
+
         public double computeFinalAmount(BookingData b) {
-            // peeks at a lot of data from BookingData instead of asking it to compute.
-            double price = b.getBasePrice();
-            if (b.getCouponCode() != null && !b.getCouponCode().isBlank()) {
-                if (b.getCouponCode().startsWith("VIP")) price *= 0.85;
-                if (b.getCouponCode().startsWith("LOYAL")) price *= 0.90;
+            long t = FINAL_AMOUNT.start();
+            try {
+                return engine.quote(b);
+            } finally {
+                FINAL_AMOUNT.stop(t);
             }
-            if (b.isBreakfast()) price += 12.5;
-            if (b.isAirportPickup()) price += 30;
-            price = price + price * b.getTaxRate();
-            // arbitrary surcharge by nights and roomType
-            if ("SUITE".equals(b.getRoomType())) price += 40 * b.getNights();
-            else if ("DELUXE".equals(b.getRoomType())) price += 25 * b.getNights();
-            return price;
         }
     }
 
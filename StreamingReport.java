@@ -0,0 +1,295 @@
+// File: StreamingReport.java
+// Purpose: Manager.hugeReport over an unbounded record source, as partial reports
+// on tumbling or sliding windows.
+//
+// Records arrive one at a time, as a Flow.Subscriber (with demand-based
+// backpressure: at most `batch` records requested ahead) or by pulling an Iterator.
+// Nothing is materialized. A window of `size` is split into panes of `step`, each
+// pane a ReportTally, and a ring keeps the last size / step panes. When a pane
+// closes, the merged tally of the panes still in the window goes to the sink in
+// the hugeReport format. A tumbling window is the one-pane case. Memory is bounded
+// by the number of panes, not by the feed.
+// Count windows close a pane after every `step` records. Time windows put a record
+// in the pane of its timestamp (event time, or the clock when none is given) and
+// close panes when a later record arrives or advanceTo() is called. A late record
+// joins the pane still open, or the one after the last closed pane: a closed pane
+// is never reopened, so every record shows up in exactly one emitted pane. Pane
+// indexes may be negative (timestamps before the epoch).
+// Each closed pane is folded into the manager once (counters, price history), as
+// hugeReport does for a whole list. Price tiers are resolved per pane.
+// A StreamingReport is fed by one thread at a time, as the Flow rules demand.
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.function.ToLongFunction;
+import java.util.random.RandomGenerator;
+
+public class StreamingReport implements Flow.Subscriber<DataOnly>, AutoCloseable {
+
+    // Receives each window's report; start and end are record indices or epoch millis.
+    public interface WindowSink {
+        void window(long start, long end, String report);
+    }
+
+    public static final class Window {
+        final boolean byTime;
+        final long size, step; // records, or millis
+
+        private Window(boolean byTime, long size, long step) {
+            if (step <= 0 || size < step || size % step != 0) {
+                throw new IllegalArgumentException("size must be a positive multiple of step: " + size + "/" + step);
+            }
+            this.byTime = byTime;
+            this.size = size;
+            this.step = step;
+        }
+
+        public static Window tumbling(long records) {
+            return new Window(false, records, records);
+        }
+
+        // Every `step` records, a report over the last `records`.
+        public static Window sliding(long records, long step) {
+            return new Window(false, records, step);
+        }
+
+        public static Window tumbling(Duration size) {
+            return new Window(true, size.toMillis(), size.toMillis());
+        }
+
+        public static Window sliding(Duration size, Duration step) {
+            return new Window(true, size.toMillis(), step.toMillis());
+        }
+
+        int panes() {
+            return (int) (size / step);
+        }
+    }
+
+    private static final int DEFAULT_BATCH = 256;
+    private static final long NONE = Long.MIN_VALUE; // no pane
+
+    private final Manager manager;
+    private final CustomerCtx ctx;
+    private final Window window;
+    private final WindowSink sink;
+    private final ToLongFunction<DataOnly> timestamp;
+    private final RandomGenerator coin;
+    private final int batch;
+
+    private final ReportTally[] panes; // pane p sits in slot p % panes.length
+    private final long[] paneIndex;
+    private final long[] paneBase;     // manager.events.recorded() when the pane opened
+    private final PriceTiers.Cut[] paneCut;
+    private long open = NONE;          // index of the open pane
+    private long lastClosed = NONE;
+    private long emittedThrough = NONE; // windows ending at panes up to this one are out
+    private boolean started;
+    private long seen;
+
+    private final CompletableFuture<Long> completion = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+    private long outstanding;
+
+    // Count windows, or time windows on the clock's time of arrival.
+    public StreamingReport(Manager manager, CustomerCtx ctx, Window window, WindowSink sink) {
+        this(manager, ctx, window, sink, Clock.systemUTC());
+    }
+
+    public StreamingReport(Manager manager, CustomerCtx ctx, Window window, WindowSink sink, Clock clock) {
+        this(manager, ctx, window, sink, r -> clock.millis(), DEFAULT_BATCH);
+    }
+
+    // Time windows on event time: timestamp gives a record's epoch millis.
+    public StreamingReport(Manager manager, CustomerCtx ctx, Window window, WindowSink sink,
+                           ToLongFunction<DataOnly> timestamp, int batch) {
+        if (batch <= 0) throw new IllegalArgumentException("batch must be > 0");
+        this.manager = manager;
+        this.ctx = ctx;
+        this.window = window;
+        this.sink = sink;
+        this.timestamp = timestamp;
+        this.coin = manager.reportRandom();
+        this.batch = batch;
+        int k = window.panes();
+        panes = new ReportTally[k];
+        paneIndex = new long[k];
+        paneBase = new long[k];
+        paneCut = new PriceTiers.Cut[k];
+        Arrays.fill(paneIndex, NONE);
+    }
+
+    // Completes with the number of records once the feed ends (or exceptionally on error).
+    public CompletableFuture<Long> completion() {
+        return completion;
+    }
+
+    public long recordsSeen() {
+        return seen;
+    }
+
+    public void accept(DataOnly r) {
+        long p = window.byTime ? timePane(r) : seen / window.step;
+        if (p != open) {
+            if (open != NONE) closeOpen();
+            emitUpTo(p);
+            openPane(p);
+        }
+        int slot = slot(p);
+        manager.tally(r, ctx, coin.nextBoolean(), paneCut[slot], panes[slot]);
+        seen++;
+        if (!window.byTime && seen % window.step == 0) {
+            closeOpen();
+            emitUpTo(p + 1);
+        }
+    }
+
+    // Time windows: closes the panes that ended by timeMillis, so a quiet feed still reports.
+    public void advanceTo(long timeMillis) {
+        if (!window.byTime || !started) return;
+        long p = Math.floorDiv(timeMillis, window.step);
+        if (open != NONE && p > open) closeOpen();
+        if (open == NONE) emitUpTo(p);
+    }
+
+    // The record's own pane, moved up past the panes already closed.
+    private long timePane(DataOnly r) {
+        long p = Math.floorDiv(timestamp.applyAsLong(r), window.step);
+        if (open != NONE) return Math.max(p, open);
+        if (lastClosed != NONE) return Math.max(p, lastClosed + 1);
+        return p;
+    }
+
+    // Pulls the iterator dry, then closes the last (partial) pane.
+    public long consume(Iterator<? extends DataOnly> records) {
+        try {
+            while (records.hasNext()) accept(records.next());
+            close();
+        } catch (RuntimeException e) {
+            completion.completeExceptionally(e);
+            throw e;
+        }
+        return seen;
+    }
+
+    // Closes the open pane, emitting the window that ends with it.
+    @Override
+    public void close() {
+        finish();
+        completion.complete(seen);
+    }
+
+    private void finish() {
+        if (open != NONE) {
+            closeOpen();
+            emitUpTo(lastClosed + 1);
+        }
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription s) {
+        if (subscription != null) {
+            s.cancel();
+            return;
+        }
+        subscription = s;
+        outstanding = batch;
+        s.request(batch);
+    }
+
+    @Override
+    public void onNext(DataOnly r) {
+        try {
+            accept(r);
+        } catch (RuntimeException e) {
+            subscription.cancel();
+            completion.completeExceptionally(e);
+            return;
+        }
+        if (--outstanding <= batch / 2) {
+            subscription.request(batch - outstanding);
+            outstanding = batch;
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        finish(); // report what arrived before the failure
+        completion.completeExceptionally(t);
+    }
+
+    @Override
+    public void onComplete() {
+        close();
+    }
+
+    private int slot(long pane) {
+        return (int) Math.floorMod(pane, (long) panes.length);
+    }
+
+    private void openPane(long p) {
+        if (!started) {
+            started = true;
+            emittedThrough = p - 1;
+        }
+        int slot = slot(p);
+        panes[slot] = new ReportTally();
+        paneIndex[slot] = p;
+        paneBase[slot] = manager.events.recorded();
+        paneCut[slot] = manager.tiers == null ? null : manager.tiers.resolve(manager.priceSketch());
+        open = p;
+    }
+
+    private void closeOpen() {
+        manager.fold(panes[slot(open)]);
+        lastClosed = open;
+        open = NONE;
+    }
+
+    // Emits the windows ending at each pane before `next` not emitted yet, as long as
+    // they still hold a closed pane; windows of empty panes only are skipped.
+    private void emitUpTo(long next) {
+        if (lastClosed == NONE) return;
+        long last = Math.min(next - 1, lastClosed + panes.length - 1);
+        for (long end = emittedThrough + 1; end <= last; end++) emit(end);
+        if (last > emittedThrough) emittedThrough = last;
+    }
+
+    private void emit(long lastPane) {
+        ReportTally w = new ReportTally();
+        long first = NONE, latest = NONE;
+        for (long p = lastPane - panes.length + 1; p <= lastPane; p++) {
+            int slot = slot(p);
+            if (paneIndex[slot] != p) continue;
+            if (first == NONE) first = p;
+            latest = p;
+            w.merge(panes[slot]);
+        }
+        if (w.count == 0) return;
+        long start = (lastPane - panes.length + 1) * window.step;
+        long end = window.byTime ? (lastPane + 1) * window.step : Math.min((lastPane + 1) * window.step, seen);
+        if (!window.byTime) start = Math.max(0, start);
+
+        StringWriter out = new StringWriter();
+        ReportWriter sb = new ReportWriter(out);
+        sb.append("=== Window ");
+        if (window.byTime) sb.append(Instant.ofEpochMilli(start)).append(" .. ").append(Instant.ofEpochMilli(end));
+        else sb.append("records ").append(start).append(" .. ").append(end);
+        sb.append(" ===\n");
+        manager.writeTally(sb, w, paneBase[slot(first)], paneCut[slot(latest)], false);
+        try {
+            sb.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a StringWriter does not fail
+        }
+        sink.window(start, end, out.toString());
+    }
+}
@@ -0,0 +1,35 @@
+// File: StringInterner.java
+// Purpose: Bounded, concurrent dictionary for low-cardinality strings (room types, coupons).
+//
+// Every booking for a SUITE then points at the same "SUITE" instance instead of the
+// copy its request was parsed into, so only one copy stays alive however many
+// bookings there are. Once the dictionary holds maxEntries strings, new values are
+// returned unchanged rather than added: a flood of one-off codes cannot grow it
+// without bound.
+
+import java.util.concurrent.ConcurrentHashMap;
+
+public class StringInterner {
+
+    private final ConcurrentHashMap<String, String> values = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    public StringInterner(int maxEntries) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be > 0");
+        this.maxEntries = maxEntries;
+    }
+
+    // Canonical instance equal to s (null stays null).
+    public String intern(String s) {
+        if (s == null) return null;
+        String v = values.get(s);
+        if (v != null) return v;
+        if (values.size() >= maxEntries) return s;
+        v = values.putIfAbsent(s, s);
+        return v == null ? s : v;
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,116 @@
+// File: ValueDictionary.java
+// Purpose: Shared, concurrent dictionary mapping low-cardinality strings (countries,
+// cities, room types) to compact int codes, with reverse lookup.
+//
+// Guest records keep their own String for "France" or "Lille" and compare them
+// with equalsIgnoreCase again and again. Encoded records (EncodedDataOnly,
+// Smelly.EncodedForeignA, ...) store the code from a shared dictionary instead, so
+// one instance per distinct value stays on the heap and comparisons are int
+// equality. A case-folding dictionary gives two strings the same code exactly when
+// equalsIgnoreCase holds (each character is folded as toLowerCase(toUpperCase(c)),
+// the same test String.regionMatches applies), and decodes to the spelling seen first.
+// An exact dictionary keeps case-sensitive values such as room types apart.
+//
+// Lookups of known values take no lock and, for a spelling seen before, do not
+// allocate. Adding a new value locks briefly; that happens once per distinct value.
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ValueDictionary {
+
+    public static final int NULL = 0;     // code of null
+    public static final int UNKNOWN = -1; // code(s) of a value never encoded
+
+    public static final ValueDictionary COUNTRIES = new ValueDictionary(1 << 12, true);
+    public static final ValueDictionary CITIES = new ValueDictionary(1 << 16, true);
+    public static final ValueDictionary ROOM_TYPES = new ValueDictionary(1 << 10, false);
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();     // folded key -> code
+    private final ConcurrentHashMap<String, Integer> spellings = new ConcurrentHashMap<>(); // as given -> code
+    private final int maxCodes;
+    private final boolean ignoreCase;
+    private volatile String[] values = new String[16]; // code -> first spelling; [0] is null
+    private int size = 1;
+
+    public ValueDictionary(int maxCodes, boolean ignoreCase) {
+        if (maxCodes <= 1) throw new IllegalArgumentException("maxCodes must be > 1");
+        this.maxCodes = maxCodes;
+        this.ignoreCase = ignoreCase;
+    }
+
+    // Code of s, adding it if new. Throws IllegalStateException once maxCodes values are held.
+    public int encode(String s) {
+        if (s == null) return NULL;
+        Integer c = spellings.get(s);
+        if (c != null) return c;
+        String key = key(s);
+        c = codes.get(key);
+        if (c == null) c = add(key, s);
+        if (spellings.size() < 4 * maxCodes) spellings.put(s, c);
+        return c;
+    }
+
+    // Code of s without adding it: UNKNOWN if never encoded.
+    public int code(String s) {
+        if (s == null) return NULL;
+        Integer c = spellings.get(s);
+        if (c == null) c = codes.get(key(s));
+        return c != null ? c : UNKNOWN;
+    }
+
+    // The value behind code (its first spelling when case is ignored).
+    public String decode(int code) {
+        String[] v = values;
+        if (code < 0 || code >= v.length || (code != NULL && v[code] == null)) {
+            throw new IllegalArgumentException("unknown code " + code);
+        }
+        return v[code];
+    }
+
+    // Codes in use, NULL included; every code is below this.
+    public int size() {
+        return codes.size() + 1;
+    }
+
+    public boolean ignoresCase() {
+        return ignoreCase;
+    }
+
+    private synchronized int add(String key, String s) {
+        Integer c = codes.get(key);
+        if (c != null) return c;
+        if (size == maxCodes) throw new IllegalStateException("dictionary full (" + maxCodes + " values)");
+        String[] v = values;
+        if (size == v.length) v = Arrays.copyOf(v, Math.min(maxCodes, v.length * 2));
+        int code = size++;
+        v[code] = s;
+        values = v;            // publish the value before the code can be looked up
+        codes.put(key, code);
+        return code;
+    }
+
+    private String key(String s) {
+        if (!ignoreCase) return s;
+        for (int i = 0; i < s.length(); ) {
+            int cp = s.codePointAt(i);
+            if (fold(cp) != cp) return fold(s, i);
+            i += Character.charCount(cp);
+        }
+        return s; // already folded: no copy
+    }
+
+    private static String fold(String s, int from) {
+        StringBuilder out = new StringBuilder(s.length()).append(s, 0, from);
+        for (int i = from; i < s.length(); ) {
+            int cp = s.codePointAt(i);
+            out.appendCodePoint(fold(cp));
+            i += Character.charCount(cp);
+        }
+        return out.toString();
+    }
+
+    private static int fold(int cp) {
+        return Character.toLowerCase(Character.toUpperCase(cp));
+    }
+}
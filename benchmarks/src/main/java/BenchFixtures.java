@@ -0,0 +1,329 @@
+// File: BenchFixtures.java
+// Purpose: Seeded datasets and bound operations for the JMH benchmarks in package bench.
+//
+// The hotel classes live in the default package, which named packages cannot
+// import, and JMH refuses benchmarks in the default package. So the typed work
+// happens here: each public static method builds a dataset of the requested size
+// from the seed and returns the operation as a java.util.function object.
+// bench.Fixtures looks these methods up by name. The same (size, seed) always
+// yields the same data, so results from two builds can be compared.
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+public final class BenchFixtures {
+
+    private static final String[] ROOMS = {"SINGLE", "DOUBLE", "DELUXE", "SUITE", "ECONOMY"};
+    private static final String[] COUPONS = {"", "", "VIP10", "VIP2025", "LOYAL5", "SPRING"};
+    private static final String[] CITIES = {"Lille", "Paris", "Lyon", "Nantes"};
+    private static final String[] COUNTRIES = {"France", "Belgium", "Spain"};
+
+    private BenchFixtures() {
+    }
+
+    // ---------------------------------------------------------------- hotel
+
+    // createBooking against a manager that already holds `size` bookings.
+    public static Supplier<Object> createBooking(int size, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        SmellyHotel.HotelManager m = new SmellyHotel.HotelManager();
+        m.insertBatch(bookings(size, rnd));
+        List<SmellyHotel.BookingData> inputs = bookings(1024, rnd);
+        int[] next = {0};
+        return () -> {
+            SmellyHotel.BookingData b = inputs.get(next[0]++ & 1023);
+            return m.createBooking(b.getCustomerName(), b.getPhone(), b.getAddress(), b.getRoomType(),
+                    b.getNights(), b.isBreakfast(), b.isAirportPickup(), b.getBasePrice(), b.getTaxRate(),
+                    b.getCouponCode());
+        };
+    }
+
+    // Full (non-incremental) ops report over `size` bookings and a log of 10 * size lines.
+    public static Supplier<Object> operationsReport(int size, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        SmellyHotel.HotelManager m = new SmellyHotel.HotelManager();
+        m.insertBatch(bookings(size, rnd));
+        String log = opsLog(10 * size, rnd).toString();
+        return () -> m.generateOperationsReport(log);
+    }
+
+    // computeFinalAmount, cycling through `size` bookings.
+    public static DoubleSupplier computeFinalAmount(int size, long seed) {
+        List<SmellyHotel.BookingData> list = bookings(size, new SplittableRandom(seed));
+        SmellyHotel.BookingData[] data = list.toArray(new SmellyHotel.BookingData[0]);
+        SmellyHotel.DiscountCalculator calc = new SmellyHotel.DiscountCalculator();
+        int[] next = {0};
+        return () -> {
+            int i = next[0];
+            next[0] = i + 1 == data.length ? 0 : i + 1;
+            return calc.computeFinalAmount(data[i]);
+        };
+    }
+
+    // ---------------------------------------------------------------- smells
+
+    // Manager.hugeReport over `size` records.
+    public static Supplier<Object> hugeReport(int size, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        List<DataOnly> all = dataOnly(size, rnd);
+        CustomerCtx ctx = customerCtx(rnd);
+        Manager m = new Manager();
+        return () -> {
+            m.rnd = new Random(seed);
+            return m.hugeReport(all, ctx);
+        };
+    }
+
+    // Manager.hugeReportParallel over `size` records (common fork/join pool).
+    public static Supplier<Object> hugeReportParallel(int size, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        List<DataOnly> all = dataOnly(size, rnd);
+        CustomerCtx ctx = customerCtx(rnd);
+        Manager m = new Manager();
+        return () -> {
+            m.rnd = new Random(seed);
+            return m.hugeReportParallel(all, ctx);
+        };
+    }
+
+    // EnvyUtil.envyScore, cycling through `size` records.
+    public static DoubleSupplier envyScore(int size, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        DataOnly[] data = dataOnly(size, rnd).toArray(new DataOnly[0]);
+        CustomerCtx ctx = customerCtx(rnd);
+        int[] next = {0};
+        return () -> {
+            int i = next[0];
+            next[0] = i + 1 == data.length ? 0 : i + 1;
+            return EnvyUtil.envyScore(data[i], ctx);
+        };
+    }
+
+    // EnvyUtil.envyScore of every record against 16 contexts, one call at a time.
+    public static DoubleSupplier envyScoreAll(int size, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        DataOnly[] data = dataOnly(size, rnd).toArray(new DataOnly[0]);
+        CustomerCtx[] ctxs = new CustomerCtx[16];
+        for (int k = 0; k < ctxs.length; k++) ctxs[k] = customerCtx(rnd);
+        return () -> {
+            double sum = 0;
+            for (CustomerCtx ctx : ctxs) {
+                for (DataOnly d : data) sum += EnvyUtil.envyScore(d, ctx);
+            }
+            return sum;
+        };
+    }
+
+    // The same scores through EnvyTable (built once) on the common fork/join pool.
+    public static DoubleSupplier envyScoreBatch(int size, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        EnvyTable table = new EnvyTable();
+        for (DataOnly d : dataOnly(size, rnd)) table.add(d);
+        List<EnvyTable.Context> ctxs = new ArrayList<>();
+        for (int k = 0; k < 16; k++) ctxs.add(EnvyTable.context(customerCtx(rnd)));
+        return () -> {
+            double sum = 0;
+            for (double[] row : table.scores(ctxs)) {
+                for (double v : row) sum += v;
+            }
+            return sum;
+        };
+    }
+
+    // OrderProcessor.processOrder on an order with `size` lines, all three modes.
+    public static IntSupplier processOrder(int size, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int[] items = new int[size];
+        int[] quantities = new int[size];
+        for (int i = 0; i < size; i++) {
+            items[i] = 1 + rnd.nextInt(200);
+            quantities[i] = 1 + rnd.nextInt(10);
+        }
+        OrderProcessor p = new OrderProcessor();
+        return () -> p.processOrder(items, quantities, 0) + p.processOrder(items, quantities, 1)
+                + p.processOrder(items, quantities, 2);
+    }
+
+    // BatchEngine.runPipeline on a matrix of ~size cells (64 per row), every mode.
+    public static IntSupplier runPipeline(int size, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int[][] matrix = new int[Math.max(1, size / 64)][64];
+        for (int[] row : matrix) {
+            for (int j = 0; j < row.length; j++) row[j] = rnd.nextInt(-50, 2000);
+        }
+        BatchEngine e = new BatchEngine();
+        return () -> {
+            int acc = 0;
+            for (int mode = 0; mode < 5; mode++) acc += e.runPipeline(matrix, mode, 1000);
+            return acc;
+        };
+    }
+
+    // SystemManager's collection methods on a fresh manager: users, stock and log of ~size entries.
+    public static IntSupplier systemManagerCollections(int size, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        String[] names = new String[size];
+        for (int i = 0; i < size; i++) names[i] = rnd.nextInt(10) == 0 ? "" : name(rnd);
+        String[] items = new String[size];
+        int[] qty = new int[size];
+        for (int i = 0; i < size; i++) {
+            items[i] = "item" + rnd.nextInt(Math.max(1, size / 4));
+            qty[i] = rnd.nextInt(-5, 50);
+        }
+        return () -> {
+            SystemManager sm = new SystemManager();
+            sm.addUsers(names);
+            for (int i = 0; i < items.length; i++) sm.restock(items[i], qty[i]);
+            for (int i = 0; i < qty.length; i++) sm.recordLog(qty[i] * 7);
+            sm.audit();
+            int r = sm.countLongNames() + sm.totalStock() + sm.sumLog();
+            sm.cleanup();
+            return r;
+        };
+    }
+
+    // SystemManager's array kernels (processBatch, analyze, summarize) on `size` ints.
+    public static IntSupplier systemManagerArrays(int size, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int[] data = new int[size];
+        for (int i = 0; i < size; i++) data[i] = rnd.nextInt(-100, 400);
+        SystemManager sm = new SystemManager();
+        return () -> sm.processBatch(data, 1) + sm.processBatch(data, 2) + sm.processBatch(data, 3)
+                + sm.analyze(data) + sm.summarize(data);
+    }
+
+    // SystemManager's scalar methods (status, schedule, dispatch, scoring, balance), `size` calls each.
+    public static IntSupplier systemManagerScalars(int size, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int[] codes = new int[size];
+        for (int i = 0; i < size; i++) codes[i] = rnd.nextInt(-10, 120);
+        SystemManager sm = new SystemManager();
+        return () -> {
+            int acc = 0;
+            sm.reset();
+            for (int c : codes) {
+                acc += sm.computeStatus(c & 7).length() + sm.schedule(c & 7).length() + sm.dispatch(c).length();
+                if (sm.validate(c)) acc++;
+                acc += sm.score(c & 63, (c >> 2) & 63);
+                sm.applyInterest(c > 0 ? 0.01 : -1);
+                sm.rebalance(50);
+                sm.toggle();
+            }
+            return acc;
+        };
+    }
+
+    // Customer.getMobilePhoneNumber / Phone getters, cycling through `size` customers.
+    public static Supplier<Object> phoneFormat(int size, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        Customer[] customers = new Customer[size];
+        for (int i = 0; i < size; i++) {
+            customers[i] = new Customer(new Phone(String.format("%010d", rnd.nextLong(1_000_000_000L, 10_000_000_000L))));
+        }
+        int[] next = {0};
+        return () -> {
+            int i = next[0];
+            next[0] = i + 1 == customers.length ? 0 : i + 1;
+            return customers[i].getMobilePhoneNumber();
+        };
+    }
+
+    // PhoneNumbers.formatAll of `size` packed numbers into one reused StringBuilder.
+    public static IntSupplier phoneFormatBulk(int size, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        long[] numbers = new long[size];
+        for (int i = 0; i < size; i++) numbers[i] = rnd.nextLong(1_000_000_000L, 10_000_000_000L);
+        StringBuilder out = new StringBuilder(size * (PhoneNumbers.FORMATTED_LENGTH + 1));
+        return () -> {
+            out.setLength(0);
+            return PhoneNumbers.formatAll(numbers, 0, numbers.length, '\n', out).length();
+        };
+    }
+
+    // ---------------------------------------------------------------- generators
+
+    static List<SmellyHotel.BookingData> bookings(int n, SplittableRandom rnd) {
+        List<SmellyHotel.BookingData> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            SmellyHotel.BookingData b = new SmellyHotel.BookingData();
+            b.setCustomerName(name(rnd));
+            b.setPhone(String.format("%010d", rnd.nextLong(1_000_000_000L, 10_000_000_000L)));
+            b.setAddress(rnd.nextInt(1, 200) + " rue " + CITIES[rnd.nextInt(CITIES.length)]);
+            b.setRoomType(ROOMS[rnd.nextInt(ROOMS.length)]);
+            b.setNights(rnd.nextInt(1, 15));
+            b.setBreakfast(rnd.nextBoolean());
+            b.setAirportPickup(rnd.nextInt(4) == 0);
+            b.setBasePrice(40 + rnd.nextInt(0, 46_000) / 100.0);
+            b.setTaxRate(rnd.nextBoolean() ? 0.1 : 0.2);
+            b.setCouponCode(COUPONS[rnd.nextInt(COUPONS.length)]);
+            out.add(b);
+        }
+        return out;
+    }
+
+    static List<DataOnly> dataOnly(int n, SplittableRandom rnd) {
+        List<DataOnly> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            DataOnly d = new DataOnly();
+            d.id = "R" + i;
+            d.name = name(rnd);
+            d.email = d.name.toLowerCase() + (rnd.nextBoolean() ? "@mail.fr" : "@mail.com");
+            d.city = CITIES[rnd.nextInt(CITIES.length)];
+            d.country = COUNTRIES[rnd.nextInt(COUNTRIES.length)];
+            d.type = ROOMS[rnd.nextInt(ROOMS.length)];
+            d.coupon = COUPONS[rnd.nextInt(COUPONS.length)];
+            d.level = rnd.nextInt(10);
+            d.vip = rnd.nextInt(5) == 0;
+            d.balance = rnd.nextInt(0, 50_000) / 100.0;
+            d.tax = rnd.nextBoolean() ? 0.1 : 0.2;
+            out.add(d);
+        }
+        return out;
+    }
+
+    static CustomerCtx customerCtx(SplittableRandom rnd) {
+        CustomerCtx ctx = new CustomerCtx();
+        ctx.country = "France";
+        ctx.city = CITIES[rnd.nextInt(CITIES.length)];
+        ctx.loyalty = rnd.nextInt(6);
+        return ctx;
+    }
+
+    // Ops log with ~2% ERROR and ~5% WARN lines, written to a temp file deleted on exit.
+    static Path opsLog(int lines, SplittableRandom rnd) {
+        try {
+            Path p = Files.createTempFile("bench-ops", ".log");
+            p.toFile().deleteOnExit();
+            try (Writer w = Files.newBufferedWriter(p, StandardCharsets.UTF_8)) {
+                for (int i = 0; i < lines; i++) {
+                    int r = rnd.nextInt(100);
+                    String level = r < 2 ? "ERROR" : r < 7 ? "WARN" : "INFO";
+                    w.write("2025-01-01T00:00:" + (i % 60) + " " + level + " request " + i
+                            + " took " + rnd.nextInt(1, 900) + "ms\n");
+                }
+            }
+            return p;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String name(SplittableRandom rnd) {
+        int len = rnd.nextInt(3, 10);
+        char[] c = new char[len];
+        c[0] = (char) ('A' + rnd.nextInt(26));
+        for (int i = 1; i < len; i++) c[i] = (char) ('a' + rnd.nextInt(26));
+        return new String(c);
+    }
+}
@@ -0,0 +1,24 @@
+// File: BenchMain.java
+// Purpose: Entry point of benchmarks.jar; JMH's Main with JSON results on by default.
+//
+// Unless -rf / -rff are given, results go to jmh-result.json so that two builds
+// can be compared file to file. Every other JMH option is passed through as is.
+
+package bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public final class BenchMain {
+
+    private BenchMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> all = new ArrayList<>(Arrays.asList(args));
+        if (!all.contains("-rf")) all.addAll(0, List.of("-rf", "json"));
+        if (!all.contains("-rff")) all.addAll(0, List.of("-rff", "jmh-result.json"));
+        org.openjdk.jmh.Main.main(all.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,29 @@
+// File: Fixtures.java
+// Purpose: Looks up the default-package BenchFixtures factories by name.
+//
+// The hotel classes are in the default package and cannot be imported here, so
+// each benchmark receives its operation as a java.util.function object, resolved
+// reflectively once per trial. Invoking that object in the measured loop is a
+// plain interface call.
+
+package bench;
+
+import java.lang.reflect.InvocationTargetException;
+
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T load(String name, int size, long seed) {
+        try {
+            Class<?> c = Class.forName("BenchFixtures");
+            return (T) c.getMethod(name, int.class, long.class).invoke(null, size, seed);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("fixture " + name + " failed", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("no fixture " + name, e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+// File: HotelBench.java
+// Purpose: HotelManager / DiscountCalculator hot paths against stores of `size` bookings.
+
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HotelBench {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param("42")
+    long seed;
+
+    private Supplier<Object> createBooking;
+    private Supplier<Object> operationsReport;
+    private DoubleSupplier computeFinalAmount;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        operationsReport = Fixtures.load("operationsReport", size, seed);
+        computeFinalAmount = Fixtures.load("computeFinalAmount", size, seed);
+    }
+
+    // the store grows with every call, so start each iteration from `size` bookings again
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        createBooking = Fixtures.load("createBooking", size, seed);
+    }
+
+    @Benchmark
+    public Object createBooking() {
+        return createBooking.get();
+    }
+
+    @Benchmark
+    public Object generateOperationsReport() {
+        return operationsReport.get();
+    }
+
+    @Benchmark
+    public double computeFinalAmount() {
+        return computeFinalAmount.getAsDouble();
+    }
+}
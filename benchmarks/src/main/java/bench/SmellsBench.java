@@ -0,0 +1,126 @@
+// File: SmellsBench.java
+// Purpose: Report, envy, order, pipeline, SystemManager and Phone hot paths on `size`-element datasets.
+
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SmellsBench {
+
+    @Param({"100", "10000"})
+    int size;
+
+    @Param("42")
+    long seed;
+
+    private Supplier<Object> hugeReport;
+    private Supplier<Object> hugeReportParallel;
+    private DoubleSupplier envyScore;
+    private DoubleSupplier envyScoreAll;
+    private DoubleSupplier envyScoreBatch;
+    private IntSupplier processOrder;
+    private IntSupplier runPipeline;
+    private IntSupplier systemManagerCollections;
+    private IntSupplier systemManagerArrays;
+    private IntSupplier systemManagerScalars;
+    private Supplier<Object> phoneFormat;
+    private IntSupplier phoneFormatBulk;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        hugeReport = Fixtures.load("hugeReport", size, seed);
+        hugeReportParallel = Fixtures.load("hugeReportParallel", size, seed);
+        envyScore = Fixtures.load("envyScore", size, seed);
+        envyScoreAll = Fixtures.load("envyScoreAll", size, seed);
+        envyScoreBatch = Fixtures.load("envyScoreBatch", size, seed);
+        processOrder = Fixtures.load("processOrder", size, seed);
+        runPipeline = Fixtures.load("runPipeline", size, seed);
+        systemManagerCollections = Fixtures.load("systemManagerCollections", size, seed);
+        systemManagerArrays = Fixtures.load("systemManagerArrays", size, seed);
+        systemManagerScalars = Fixtures.load("systemManagerScalars", size, seed);
+        phoneFormat = Fixtures.load("phoneFormat", size, seed);
+        phoneFormatBulk = Fixtures.load("phoneFormatBulk", size, seed);
+    }
+
+    @Benchmark
+    public Object managerHugeReport() {
+        return hugeReport.get();
+    }
+
+    @Benchmark
+    public Object managerHugeReportParallel() {
+        return hugeReportParallel.get();
+    }
+
+    @Benchmark
+    public double envyScore() {
+        return envyScore.getAsDouble();
+    }
+
+    @Benchmark
+    public double envyScoreAll() {
+        return envyScoreAll.getAsDouble();
+    }
+
+    @Benchmark
+    public double envyScoreBatch() {
+        return envyScoreBatch.getAsDouble();
+    }
+
+    @Benchmark
+    public int processOrder() {
+        return processOrder.getAsInt();
+    }
+
+    @Benchmark
+    public int runPipeline() {
+        return runPipeline.getAsInt();
+    }
+
+    @Benchmark
+    public int systemManagerCollections() {
+        return systemManagerCollections.getAsInt();
+    }
+
+    @Benchmark
+    public int systemManagerArrays() {
+        return systemManagerArrays.getAsInt();
+    }
+
+    @Benchmark
+    public int systemManagerScalars() {
+        return systemManagerScalars.getAsInt();
+    }
+
+    @Benchmark
+    public Object phoneFormat() {
+        return phoneFormat.get();
+    }
+
+    @Benchmark
+    public int phoneFormatBulk() {
+        return phoneFormatBulk.getAsInt();
+    }
+}
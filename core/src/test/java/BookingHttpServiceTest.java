@@ -0,0 +1,61 @@
+// File: BookingHttpServiceTest.java
+// Purpose: Input validation and JSON error bodies of the booking HTTP endpoints.
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingHttpServiceTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private BookingHttpService service;
+
+    @BeforeEach
+    void start() throws IOException {
+        service = new BookingHttpService(new SmellyHotel.HotelManager(), new InetSocketAddress("127.0.0.1", 0),
+                "does-not-exist.log", 16, 1000);
+        service.start();
+    }
+
+    @AfterEach
+    void stop() {
+        service.close();
+    }
+
+    @Test
+    void errorEscapesControlCharacters() {
+        assertEquals("{\"error\":\"a\\\"b\\\\c\\nd\\te\\u0001\\u001f\"}", BookingHttpService.error("a\"b\\c\nd\te\u0001\u001f"));
+        assertEquals("{\"error\":\"\"}", BookingHttpService.error(null));
+    }
+
+    @Test
+    void quoteIsValidatedLikeBookings() throws Exception {
+        HttpResponse<String> ok = get("/quote?roomType=DOUBLE&nights=2&basePrice=100&taxRate=0.1");
+        assertEquals(200, ok.statusCode());
+        assertTrue(ok.body().startsWith("{\"quote\":"), ok.body());
+
+        HttpResponse<String> zero = get("/quote?roomType=DOUBLE&nights=0&basePrice=100&taxRate=0.1");
+        assertEquals(400, zero.statusCode());
+        assertEquals("{\"error\":\"nights must be > 0\"}", zero.body());
+        assertEquals(400, get("/quote?roomType=DOUBLE&nights=-3&basePrice=100&taxRate=0.1").statusCode());
+        assertEquals(400, get("/quote?roomType=DOUBLE&nights=1&basePrice=NaN&taxRate=0.1").statusCode());
+        assertEquals(400, get("/quote?roomType=DOUBLE&nights=1&basePrice=100&taxRate=2").statusCode());
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + service.port() + path);
+    }
+}
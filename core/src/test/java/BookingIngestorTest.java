@@ -0,0 +1,73 @@
+// File: BookingIngestorTest.java
+// Purpose: The ingest pipeline inserts valid rows, reports rejects, and surfaces
+// the first stage failure without hanging.
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingIngestorTest {
+
+    private static final String ROW = "Guest,5550001234,\"1 Rue A, Lille\",DOUBLE,2,yes,0,100,0.1,VIP1\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void insertsValidRowsAndReportsRejects() throws IOException {
+        String csv = "customerName,phone,address,roomType,nights,breakfast,airportPickup,basePrice,taxRate,couponCode\n"
+                + ROW
+                + "Bad,5550001234,x,DOUBLE,0,no,no,100,0.1,\n"
+                + "\n"
+                + "Worse,5550001234,x,DOUBLE,two,no,no,100,0.1\n"
+                + ROW;
+        try (SmellyHotel.HotelManager m = new SmellyHotel.HotelManager()) {
+            BookingIngestor.IngestReport r = new BookingIngestor(m, 2, 1).ingest(new StringReader(csv));
+            assertEquals(2, r.inserted);
+            assertEquals(2, r.rejectedCount);
+            assertEquals(3, r.rejected.get(0).lineNo);
+            assertEquals("nights must be > 0", r.rejected.get(0).reason);
+            assertEquals(5, r.rejected.get(1).lineNo);
+            assertEquals(2, m.bookingCount());
+            assertEquals("1 Rue A, Lille", m.findBooking(1).getAddress());
+        }
+    }
+
+    @Test
+    void sourceFailureIsTheErrorThrown() {
+        Reader failing = new Reader() {
+            private final StringReader rows = new StringReader(ROW.repeat(50));
+
+            @Override
+            public int read(char[] buf, int off, int len) throws IOException {
+                int n = rows.read(buf, off, len);
+                if (n < 0) throw new IOException("channel dropped");
+                return n;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        IOException e = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(IOException.class,
+                () -> new BookingIngestor(new SmellyHotel.HotelManager(), 1, 1).ingest(failing)));
+        assertEquals("channel dropped", e.getMessage());
+    }
+
+    @Test
+    void insertFailureStopsTheUpstreamStages() throws IOException {
+        SmellyHotel.HotelManager m = new SmellyHotel.HotelManager(dir);
+        m.close(); // every insertBatch now fails
+        UncheckedIOException e = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(
+                UncheckedIOException.class, () -> new BookingIngestor(m, 1, 1).ingest(new StringReader(ROW.repeat(100)))));
+        assertEquals("Batch not persisted", e.getMessage());
+    }
+}
@@ -0,0 +1,169 @@
+// File: BookingJournalTest.java
+// Purpose: Replay, torn-tail truncation and compaction of the booking journal.
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replayRestoresPutsAndRemoves() throws IOException {
+        BookingStore store = new BookingStore();
+        try (BookingJournal j = open(store)) {
+            for (String name : List.of("Alice", "Bob", "Charlie")) {
+                SmellyHotel.BookingData b = booking(name);
+                store.add(b);
+                j.appendPut(b);
+            }
+            SmellyHotel.BookingData bob = store.get(2);
+            assertTrue(j.appendRemove(bob));
+            assertFalse(j.appendRemove(bob), "second removal of the same booking");
+            store.remove(2);
+        }
+
+        BookingStore back = new BookingStore();
+        open(back).close();
+        assertEquals(List.of(1L, 3L), ids(back));
+        SmellyHotel.BookingData alice = back.get(1);
+        assertEquals("Alice", alice.getCustomerName());
+        assertEquals("SUITE", alice.getRoomType());
+        assertEquals(LocalDate.of(2024, 3, 1), alice.getCreatedAt());
+        assertEquals(180.0, alice.getFinalAmount());
+        assertEquals(0.9, alice.getCouponFactor());
+    }
+
+    @Test
+    void tornTailIsTruncatedAndAppendsCarryOn() throws IOException {
+        BookingStore store = new BookingStore();
+        try (BookingJournal j = open(store)) {
+            for (String name : List.of("Alice", "Bob")) {
+                SmellyHotel.BookingData b = booking(name);
+                store.add(b);
+                j.appendPut(b);
+            }
+        }
+        Path segment = onlySegment();
+        long good = Files.size(segment);
+        ByteBuffer record = BookingJournal.encodePut(booking("Torn"));
+        byte[] half = new byte[record.remaining() / 2];
+        record.get(half);
+        Files.write(segment, half, StandardOpenOption.APPEND); // crash mid-write
+
+        BookingStore back = new BookingStore();
+        try (BookingJournal j = open(back)) {
+            assertEquals(List.of(1L, 2L), ids(back));
+            assertEquals(good, Files.size(segment));
+            SmellyHotel.BookingData c = booking("Charlie");
+            back.add(c);
+            j.appendPut(c);
+        }
+
+        BookingStore again = new BookingStore();
+        open(again).close();
+        assertEquals(List.of(1L, 2L, 3L), ids(again));
+    }
+
+    @Test
+    void corruptRecordEndsReplay() throws IOException {
+        BookingStore store = new BookingStore();
+        try (BookingJournal j = open(store)) {
+            for (String name : List.of("Alice", "Bob")) {
+                SmellyHotel.BookingData b = booking(name);
+                store.add(b);
+                j.appendPut(b);
+            }
+        }
+        Path segment = onlySegment();
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long last = ch.size() - 1; // inside Bob's record, past its checksum
+            ByteBuffer one = ByteBuffer.allocate(1);
+            ch.read(one, last);
+            one.put(0, (byte) (one.get(0) ^ 0x5A)).rewind();
+            ch.write(one, last);
+        }
+
+        BookingStore back = new BookingStore();
+        open(back).close();
+        assertEquals(List.of(1L), ids(back));
+    }
+
+    @Test
+    void compactionKeepsOnlyLiveBookings() throws IOException {
+        BookingStore store = new BookingStore();
+        try (BookingJournal j = open(store)) {
+            for (String name : List.of("Alice", "Bob", "Charlie")) {
+                SmellyHotel.BookingData b = booking(name);
+                store.add(b);
+                j.appendPut(b);
+            }
+            assertTrue(j.appendRemove(store.get(1)));
+            store.remove(1);
+            j.compact(store);
+            SmellyHotel.BookingData d = booking("Dana");
+            store.add(d);
+            j.appendPut(d);
+        }
+        assertTrue(Files.exists(dir.resolve("snapshot.bin")));
+        assertEquals(1, segments().size(), "covered segments are deleted");
+
+        BookingStore back = new BookingStore();
+        open(back).close();
+        assertEquals(List.of(2L, 3L, 4L), ids(back));
+        assertEquals("Dana", back.get(4).getCustomerName());
+    }
+
+    private BookingJournal open(BookingStore store) throws IOException {
+        BookingJournal j = BookingJournal.open(dir);
+        j.replay(store::put, store::remove);
+        return j;
+    }
+
+    private static SmellyHotel.BookingData booking(String name) {
+        SmellyHotel.BookingData b = new SmellyHotel.BookingData();
+        b.setCustomerName(name);
+        b.setPhone("5550001234");
+        b.setAddress("1 Main St");
+        b.setRoomType("SUITE");
+        b.setNights(2);
+        b.setBasePrice(100);
+        b.setTaxRate(0.1);
+        b.setCouponCode("LOYAL1");
+        b.setCouponFactor(0.9);
+        b.setFinalAmount(180);
+        b.setCreatedAt(LocalDate.of(2024, 3, 1));
+        return b;
+    }
+
+    private static List<Long> ids(BookingStore store) {
+        List<Long> out = new ArrayList<>();
+        store.forEach((id, b) -> out.add(id));
+        Collections.sort(out);
+        return out;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.filter(p -> p.getFileName().toString().startsWith("journal-")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> s = segments();
+        assertEquals(1, s.size());
+        return s.get(0);
+    }
+}
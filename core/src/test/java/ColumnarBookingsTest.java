@@ -0,0 +1,55 @@
+// File: ColumnarBookingsTest.java
+// Purpose: Columnar kernels agree with the ops report and the rules they were copied with.
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarBookingsTest {
+
+    @Test
+    void kernelsUseTheCapturedRules() {
+        ColumnarBookings c = new ColumnarBookings(4, PricingEngine.RuleSet.bookingDefaults()
+                .policy(PricingEngine.Policy.WEEKDAY, 1.2).breakfast(10).airportPickup(20).taxOverride(0.1));
+        c.add(booking("SUITE", 3, 100, true, false));
+        c.add(booking("DOUBLE", 1, 50, false, true));
+        assertEquals(2, c.size());
+        assertEquals((120 + 10) * 1.1 + (60 + 20) * 1.1, c.revenue(), 1e-9);
+        assertEquals(13 + 8, c.tax(), 1e-9);
+        assertEquals(40 * 3, c.surcharge(), 1e-9);
+        assertEquals(5 * 3 + 7, c.surcharge(Map.of("SUITE", 5.0, "DOUBLE", 7.0)), 1e-9);
+        assertEquals(1, c.breakfasts());
+        assertEquals(1, c.pickups());
+        assertEquals(-1, c.roomCodeOf("SINGLE"));
+    }
+
+    @Test
+    void revenueMatchesTheOpsReportWithAWeekdayFactor() throws IOException {
+        try (SmellyHotel.HotelManager m = new SmellyHotel.HotelManager()) {
+            m.pricing().reload(PricingEngine.RuleSet.bookingDefaults().policy(PricingEngine.Policy.WEEKDAY, 1.25));
+            m.createBooking("Alice", "5550001234", "1 Main St", "SUITE", 3, true, true, 150, 0.2, null);
+            m.createBooking("Bob", "5550004321", "2 Main St", "DOUBLE", 1, false, true, 80, 0.1, null);
+            Matcher r = Pattern.compile("Revenue \\(approx\\): (\\S+)")
+                    .matcher(m.generateOperationsReport("does-not-exist.log"));
+            assertTrue(r.find());
+            assertEquals(Double.parseDouble(r.group(1)), m.columnarSnapshot().revenue(), 1e-9);
+        }
+    }
+
+    private static SmellyHotel.BookingData booking(String room, int nights, double base, boolean breakfast,
+                                                   boolean pickup) {
+        SmellyHotel.BookingData b = new SmellyHotel.BookingData();
+        b.setRoomType(room);
+        b.setNights(nights);
+        b.setBasePrice(base);
+        b.setTaxRate(0.3); // replaced by the override
+        b.setBreakfast(breakfast);
+        b.setAirportPickup(pickup);
+        return b;
+    }
+}
@@ -0,0 +1,141 @@
+// File: CouponRegistryTest.java
+// Purpose: Prefix matching, windows and usage limits of coupon campaigns, and the
+// price a limited coupon grants to HotelManager bookings.
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CouponRegistryTest {
+
+    private static final Instant NOW = Instant.parse("2024-03-01T12:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void longestLivePrefixWins() {
+        CouponRegistry r = registry(List.of(
+                new CouponRegistry.Campaign("VIP", 0.85),
+                new CouponRegistry.Campaign("VIPGOLD", 0.70)));
+        assertEquals(0.70, r.factor("VIPGOLD-42"));
+        assertEquals(0.85, r.factor("VIPSILVER"));
+        assertEquals(1.0, r.factor("VI"));
+        assertEquals(1.0, r.factor(null));
+    }
+
+    @Test
+    void validityWindowIsHalfOpen() {
+        Instant from = NOW.minusSeconds(60), until = NOW.plusSeconds(60);
+        CouponRegistry r = registry(List.of(new CouponRegistry.Campaign("SPRING", 0.5, from, until, CouponRegistry.UNLIMITED)));
+        CouponRegistry.Snapshot s = r.snapshot();
+        assertEquals(-1, s.match("SPRING1", from.toEpochMilli() - 1));
+        assertEquals(0, s.match("SPRING1", from.toEpochMilli()));
+        assertEquals(-1, s.match("SPRING1", until.toEpochMilli()));
+        assertEquals(0.5, r.factor("SPRING1"));
+    }
+
+    @Test
+    void usedUpCampaignFallsBackToShorterPrefix() {
+        CouponRegistry r = registry(List.of(
+                new CouponRegistry.Campaign("VIP", 0.85),
+                new CouponRegistry.Campaign("VIPGOLD", 0.70, null, null, 2)));
+        assertEquals(0.70, r.redeem("VIPGOLD1"));
+        assertEquals(0.70, r.redeem("VIPGOLD2"));
+        assertEquals(0.85, r.redeem("VIPGOLD3"));
+        assertEquals(2, r.uses("VIPGOLD"));
+        assertEquals(1, r.uses("VIP"));
+    }
+
+    @Test
+    void releaseGivesBackAUse() {
+        CouponRegistry r = registry(List.of(new CouponRegistry.Campaign("ONCE", 0.5, null, null, 1)));
+        CouponRegistry.Campaign c = r.redeemCampaign("ONCE1");
+        assertNotNull(c);
+        assertNull(r.redeemCampaign("ONCE2"));
+        r.release(c);
+        assertSame(c, r.redeemCampaign("ONCE3"));
+    }
+
+    @Test
+    void usageSurvivesReload() {
+        CouponRegistry r = registry(List.of(new CouponRegistry.Campaign("ONCE", 0.5, null, null, 1)));
+        assertEquals(0.5, r.redeem("ONCE1"));
+        r.reload(List.of(new CouponRegistry.Campaign("ONCE", 0.4, null, null, 1),
+                new CouponRegistry.Campaign("NEW", 0.9)));
+        assertEquals(1.0, r.redeem("ONCE2"));
+        assertEquals(0.9, r.redeem("NEW1"));
+    }
+
+    @Test
+    void concurrentRedeemsNeverExceedTheLimit() throws InterruptedException {
+        CouponRegistry r = registry(List.of(new CouponRegistry.Campaign("FLASH", 0.5, null, null, 100)));
+        int threads = 8;
+        int[] granted = new int[threads];
+        List<Thread> ts = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int slot = t;
+            ts.add(new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (r.redeemCampaign("FLASH" + i) != null) granted[slot]++;
+                }
+            }));
+        }
+        for (Thread t : ts) t.start();
+        for (Thread t : ts) t.join();
+        int total = 0;
+        for (int g : granted) total += g;
+        assertEquals(100, total);
+        assertEquals(100, r.uses("FLASH"));
+    }
+
+    @Test
+    void bookingKeepsThePriceItsCouponGranted() throws IOException {
+        try (SmellyHotel.HotelManager m = new SmellyHotel.HotelManager(dir)) {
+            m.pricing().reload(PricingEngine.RuleSet.bookingDefaults()
+                    .campaign(new CouponRegistry.Campaign("SPRING", 0.5, null, null, 1)));
+            SmellyHotel.BookingData first = book(m, "SPRING-A");
+            SmellyHotel.BookingData second = book(m, "SPRING-B");
+            assertEquals(50.0, first.getFinalAmount());
+            assertEquals(50.0, m.pricing().quote(first), "the used-up limit must not reprice it");
+            assertEquals(100.0, second.getFinalAmount());
+            assertEquals("SPRING-B", second.getCouponCode(), "the code is kept as entered");
+            assertEquals(1.0, second.getCouponFactor(), "but nothing was granted");
+
+            SmellyHotel.BookingData imported = new SmellyHotel.BookingData();
+            imported.setCustomerName("Dana");
+            imported.setRoomType("DOUBLE");
+            imported.setNights(1);
+            imported.setBasePrice(100);
+            imported.setCouponCode("SPRING-C");
+            m.insertBatch(List.of(imported));
+            assertEquals(100.0, imported.getFinalAmount(), "imports respect the limit too");
+        }
+        try (SmellyHotel.HotelManager m = new SmellyHotel.HotelManager(dir)) {
+            SmellyHotel.BookingData first = m.findBooking(1);
+            assertEquals(50.0, first.getFinalAmount());
+            assertEquals(50.0, m.pricing().quote(first));
+            assertEquals("SPRING-B", m.findBooking(2).getCouponCode());
+            assertEquals(100.0, m.pricing().quote(m.findBooking(2)));
+        }
+    }
+
+    private static SmellyHotel.BookingData book(SmellyHotel.HotelManager m, String coupon) {
+        return m.createBooking("Guest", "5550001234", "1 Main St", "DOUBLE", 1, false, false, 100, 0.0, coupon);
+    }
+
+    private static CouponRegistry registry(List<CouponRegistry.Campaign> campaigns) {
+        CouponRegistry r = new CouponRegistry(Clock.fixed(NOW, ZoneOffset.UTC));
+        r.reload(campaigns);
+        return r;
+    }
+}
@@ -0,0 +1,62 @@
+// File: EnvyTableTest.java
+// Purpose: EnvyTable scores equal EnvyUtil.envyScore bit for bit, odd e-mails included.
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnvyTableTest {
+
+    private static final String[] EMAILS = {"a@x.fr", "fr", ".fr", "b@x.com", "c@x.FR", "fr.", "", null, "d@x.y.fr"};
+
+    @Test
+    void scoresMatchEnvyScore() {
+        List<DataOnly> guests = new ArrayList<>();
+        String[] types = {"SUITE", "DOUBLE", null};
+        String[] coupons = {"VIP10", "LOYAL", null};
+        for (int i = 0; i < EMAILS.length * 3; i++) {
+            DataOnly d = new DataOnly();
+            d.id = "u" + i;
+            d.email = EMAILS[i % EMAILS.length];
+            d.type = types[i % types.length];
+            d.coupon = coupons[i / EMAILS.length];
+            d.country = i % 2 == 0 ? "France" : "Belgium";
+            d.city = i % 4 == 0 ? "lille" : "Paris";
+            d.level = i % 6;
+            d.vip = i % 5 == 0;
+            d.balance = 100 + 7.3 * i;
+            guests.add(d);
+        }
+        List<CustomerCtx> contexts = List.of(ctx("France", "Paris", 3), ctx("Spain", "Lille", 1));
+
+        EnvyTable table = new EnvyTable();
+        for (DataOnly d : guests) table.add(d);
+        List<EnvyTable.Context> cs = new ArrayList<>();
+        for (CustomerCtx c : contexts) cs.add(EnvyTable.context(c));
+        double[][] parallel = table.scores(cs);
+        double[][] sequential = table.scoresSequential(cs);
+
+        for (int k = 0; k < contexts.size(); k++) {
+            for (int i = 0; i < guests.size(); i++) {
+                double expected = EnvyUtil.envyScore(guests.get(i), contexts.get(k));
+                String what = "email=" + guests.get(i).email + " ctx=" + k;
+                assertEquals(expected, parallel[k][i], 0.0, what);
+                assertEquals(expected, sequential[k][i], 0.0, what);
+                assertEquals(expected, table.score(i, cs.get(k)), 0.0, what);
+            }
+        }
+        assertTrue(Arrays.stream(parallel[0]).allMatch(Double::isFinite));
+    }
+
+    private static CustomerCtx ctx(String country, String city, int loyalty) {
+        CustomerCtx c = new CustomerCtx();
+        c.country = country;
+        c.city = city;
+        c.loyalty = loyalty;
+        return c;
+    }
+}
@@ -0,0 +1,93 @@
+// File: HotelManagerTest.java
+// Purpose: Live totals of HotelManager stay equal to the stored bookings while
+// createBooking and cancelBooking race, with and without a journal.
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotelManagerTest {
+
+    private static final int BOOKINGS = 2_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void cancelsRacingCreatesKeepTotalsInMemory() throws Exception {
+        try (SmellyHotel.HotelManager m = new SmellyHotel.HotelManager()) {
+            race(m);
+            assertTotalsMatchStore(m);
+        }
+    }
+
+    @Test
+    void cancelsRacingCreatesKeepTotalsWithAJournal() throws Exception {
+        int live;
+        try (SmellyHotel.HotelManager m = new SmellyHotel.HotelManager(dir)) {
+            race(m);
+            assertTotalsMatchStore(m);
+            live = m.bookingCount();
+        }
+        try (SmellyHotel.HotelManager m = new SmellyHotel.HotelManager(dir)) {
+            assertEquals(live, m.bookingCount());
+            assertTotalsMatchStore(m);
+        }
+    }
+
+    @Test
+    void bookingStillBeingCreatedCannotBeCancelled() throws IOException {
+        try (SmellyHotel.HotelManager m = new SmellyHotel.HotelManager(dir)) {
+            SmellyHotel.BookingData b = book(m);
+            assertSame(b, m.cancelBooking(b.getId()));
+            assertNull(m.cancelBooking(b.getId()));
+        }
+        try (BookingJournal j = BookingJournal.open(dir.resolve("other"))) {
+            j.replay(b -> { }, id -> { });
+            SmellyHotel.BookingData unjournaled = new SmellyHotel.BookingData();
+            unjournaled.setId(7);
+            assertFalse(j.appendRemove(unjournaled));
+        }
+    }
+
+    // Creates BOOKINGS bookings while another thread cancels every id it finds.
+    private static void race(SmellyHotel.HotelManager m) throws InterruptedException {
+        AtomicBoolean done = new AtomicBoolean();
+        Thread canceller = new Thread(() -> {
+            while (!done.get()) {
+                for (long id = 1; id <= BOOKINGS; id += 2) m.cancelBooking(id);
+            }
+        });
+        canceller.start();
+        for (int i = 0; i < BOOKINGS; i++) {
+            SmellyHotel.BookingData b = book(m);
+            assertTrue(b.getId() > 0);
+        }
+        done.set(true);
+        canceller.join();
+    }
+
+    private static SmellyHotel.BookingData book(SmellyHotel.HotelManager m) {
+        return m.createBooking("Guest", "5550001234", "1 Main St", "DOUBLE", 1, false, true, 100, 0.0, null);
+    }
+
+    // Every booking above contributes 100 + 30 (pickup) revenue and one pickup.
+    private static void assertTotalsMatchStore(SmellyHotel.HotelManager m) {
+        String report = m.generateOperationsReport("does-not-exist.log");
+        assertEquals(m.bookingCount() * 130.0, number(report, "Revenue \\(approx\\)"), 1e-6);
+        assertEquals(m.bookingCount(), (int) number(report, "Airport pickups"));
+    }
+
+    private static double number(String report, String label) {
+        Matcher r = Pattern.compile(label + ": (\\S+)").matcher(report);
+        assertTrue(r.find(), report);
+        return Double.parseDouble(r.group(1));
+    }
+}
@@ -0,0 +1,50 @@
+// File: MetricsTest.java
+// Purpose: Histogram quantiles and buckets, and no call lost while timer windows rotate.
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+    @Test
+    void histogramUsesNearestRank() {
+        Metrics.Histogram h = new Metrics.Histogram();
+        for (long v = 1; v <= 10; v++) h.record(v);
+        assertEquals(10, h.count());
+        assertEquals(55, h.sum());
+        assertEquals(5, h.quantile(0.5));
+        assertEquals(9, h.quantile(0.9));
+        assertEquals(10, h.quantile(1));
+        h.record(-5);
+        assertEquals(0, h.quantile(0));
+    }
+
+    @Test
+    void bucketBoundsCoverEveryValue() {
+        for (long v : new long[] {0, 1, 15, 16, 17, 1000, 123_456_789L, Long.MAX_VALUE}) {
+            int b = Metrics.Histogram.bucket(v);
+            assertTrue(Metrics.Histogram.upperBound(b) >= v, "v=" + v);
+            if (b > 0) assertTrue(Metrics.Histogram.upperBound(b - 1) < v, "v=" + v);
+        }
+    }
+
+    @Test
+    void rotationLosesNoCalls() throws InterruptedException {
+        Metrics.Timer t = new Metrics.Timer("test.rotation", 50_000); // a new window every 50us
+        int threads = 8, calls = 50_000;
+        List<Thread> ts = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            ts.add(new Thread(() -> {
+                for (int c = 0; c < calls; c++) t.stop(t.start());
+            }));
+        }
+        for (Thread th : ts) th.start();
+        for (Thread th : ts) th.join();
+        assertEquals((long) threads * calls, t.getCalls());
+        assertEquals(0, t.getInFlight());
+    }
+}
@@ -0,0 +1,101 @@
+// File: PhoneNumbersTest.java
+// Purpose: Parsing, packing and every formatting target of packed phone numbers,
+// and the legacy Phone / Customer getters built on them.
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhoneNumbersTest {
+
+    @Test
+    void parseAcceptsCommonSeparators() {
+        long n = 5_550_001_234L;
+        assertEquals(n, PhoneNumbers.parse("5550001234"));
+        assertEquals(n, PhoneNumbers.parse("(555) 000-1234"));
+        assertEquals(n, PhoneNumbers.parse("555.000.1234"));
+        assertEquals(12_345_678L, PhoneNumbers.parse("001-234-5678"));
+    }
+
+    @Test
+    void parseRejectsBadInput() {
+        assertThrows(IllegalArgumentException.class, () -> PhoneNumbers.parse("555000123"));
+        assertThrows(IllegalArgumentException.class, () -> PhoneNumbers.parse("55500012345"));
+        assertThrows(IllegalArgumentException.class, () -> PhoneNumbers.parse("555-000-12a4"));
+    }
+
+    @Test
+    void packDigitsReadsTenDigitsOrNothing() {
+        assertEquals(5_550_001_234L, PhoneNumbers.packDigits("tel:5550001234", 4));
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.packDigits("555-0001234", 0));
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.packDigits("555000123", 0));
+        assertEquals(PhoneNumbers.INVALID, PhoneNumbers.packDigits("5550001234", -1));
+    }
+
+    @Test
+    void packAndPartsRoundTrip() {
+        long n = PhoneNumbers.pack(7, 80, 9);
+        assertEquals(7, PhoneNumbers.areaCode(n));
+        assertEquals(80, PhoneNumbers.prefix(n));
+        assertEquals(9, PhoneNumbers.line(n));
+        assertEquals("(007) 080-0009", PhoneNumbers.format(n));
+        assertThrows(IllegalArgumentException.class, () -> PhoneNumbers.pack(1000, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> PhoneNumbers.format(PhoneNumbers.INVALID));
+    }
+
+    @Test
+    void everyTargetWritesTheSameText() throws IOException {
+        long n = PhoneNumbers.parse("555-000-1234");
+        String expected = "(555) 000-1234";
+        assertEquals(expected, PhoneNumbers.format(n));
+        assertEquals("> " + expected, PhoneNumbers.appendTo(n, new StringBuilder("> ")).toString());
+        StringWriter w = new StringWriter();
+        PhoneNumbers.appendTo(n, (Appendable) w);
+        assertEquals(expected, w.toString());
+
+        char[] chars = new char[PhoneNumbers.FORMATTED_LENGTH + 2];
+        assertEquals(PhoneNumbers.FORMATTED_LENGTH + 1, PhoneNumbers.write(n, chars, 1));
+        assertEquals(expected, new String(chars, 1, PhoneNumbers.FORMATTED_LENGTH));
+        assertThrows(IndexOutOfBoundsException.class, () -> PhoneNumbers.write(n, chars, 3));
+
+        ByteBuffer buf = ByteBuffer.allocate(PhoneNumbers.FORMATTED_LENGTH);
+        PhoneNumbers.write(n, buf);
+        assertFalse(buf.hasRemaining());
+        assertEquals(expected, new String(buf.array(), StandardCharsets.US_ASCII));
+        assertThrows(BufferOverflowException.class, () -> PhoneNumbers.write(n, buf));
+    }
+
+    @Test
+    void bulkFormattingSeparatesEachNumber() {
+        long[] numbers = {PhoneNumbers.pack(555, 0, 1234), PhoneNumbers.pack(1, 2, 3)};
+        String expected = "(555) 000-1234\n(001) 002-0003\n";
+        assertEquals(expected, PhoneNumbers.formatAll(numbers, 0, 2, '\n', new StringBuilder()).toString());
+
+        ByteBuffer buf = ByteBuffer.allocate(2 * (PhoneNumbers.FORMATTED_LENGTH + 1));
+        PhoneNumbers.formatAll(numbers, 0, 2, (byte) '\n', buf);
+        assertEquals(expected, new String(buf.array(), StandardCharsets.US_ASCII));
+        ByteBuffer small = ByteBuffer.allocate(PhoneNumbers.FORMATTED_LENGTH + 1);
+        assertThrows(BufferOverflowException.class, () -> PhoneNumbers.formatAll(numbers, 0, 2, (byte) '\n', small));
+        assertEquals(0, small.position(), "nothing written when the batch does not fit");
+    }
+
+    @Test
+    void phoneGettersAgreeForStringAndPackedNumbers() {
+        Phone fromText = new Phone("0070800009");
+        Phone fromPacked = new Phone(fromText.packed());
+        for (Phone p : new Phone[] {fromText, fromPacked}) {
+            assertEquals("007", p.getAreaCode());
+            assertEquals("080", p.getPrefix());
+            assertEquals("0009", p.getNumber());
+        }
+        assertEquals("(007) 080-0009", new Customer(fromPacked).getMobilePhoneNumber());
+        assertEquals("(555) 000-123x", new Customer(new Phone("555000123x")).getMobilePhoneNumber());
+        assertThrows(IllegalArgumentException.class, () -> new Phone(PhoneNumbers.INVALID));
+    }
+}
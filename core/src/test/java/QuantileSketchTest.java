@@ -0,0 +1,117 @@
+// File: QuantileSketchTest.java
+// Purpose: Nearest-rank quantiles, accuracy, merge order independence of the
+// price sketch, and when hugeReport prints its quantile lines.
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    private static final double[] QS = {0, 0.01, 0.25, 0.5, 0.9, 0.99, 1};
+
+    @Test
+    void emptySketchHasNoQuantiles() {
+        QuantileSketch s = new QuantileSketch();
+        assertEquals(0, s.count());
+        assertTrue(Double.isNaN(s.quantile(0.5)));
+        assertThrows(IllegalArgumentException.class, () -> s.quantile(1.5));
+        assertThrows(IllegalArgumentException.class, () -> s.quantile(Double.NaN));
+    }
+
+    @Test
+    void upperQuantilesOfTwoValuesAreTheLarger() {
+        QuantileSketch s = new QuantileSketch().add(265.81).add(428.41);
+        assertEquals(265.81, s.quantile(0.5), 265.81 * QuantileSketch.relativeError());
+        assertEquals(428.41, s.quantile(0.9), 428.41 * QuantileSketch.relativeError());
+        assertEquals(428.41, s.quantile(0.99), 428.41 * QuantileSketch.relativeError());
+    }
+
+    @Test
+    void quantilesStayWithinTheRelativeErrorOfTheExactRank() {
+        Random rnd = new Random(42);
+        double[] xs = new double[10_000];
+        QuantileSketch s = new QuantileSketch();
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = Math.exp(rnd.nextGaussian() * 2) * 100;
+            s.add(xs[i]);
+        }
+        Arrays.sort(xs);
+        for (double q : QS) {
+            double exact = xs[(int) Math.max(0, Math.ceil(q * xs.length) - 1)];
+            assertEquals(exact, s.quantile(q), exact * QuantileSketch.relativeError(), "q=" + q);
+        }
+    }
+
+    @Test
+    void negativesZerosAndNonFiniteValues() {
+        QuantileSketch s = new QuantileSketch();
+        for (double x : new double[] {-10, -1, 0, 0, 1, 10, Double.NaN, Double.POSITIVE_INFINITY}) s.add(x);
+        assertEquals(6, s.count());
+        assertEquals(2, s.nonFinite());
+        assertEquals(-10, s.min());
+        assertEquals(10, s.max());
+        assertEquals(0.0, s.quantile(0.5));
+        assertEquals(-10, s.quantile(0), 10 * QuantileSketch.relativeError());
+    }
+
+    @Test
+    void mergeMatchesAddingSequentially() {
+        Random rnd = new Random(7);
+        QuantileSketch all = new QuantileSketch(64);
+        QuantileSketch[] parts = {new QuantileSketch(64), new QuantileSketch(64), new QuantileSketch(64)};
+        for (int i = 0; i < 5_000; i++) {
+            double x = rnd.nextDouble() < 0.1 ? -rnd.nextDouble() * 50 : Math.pow(10, rnd.nextDouble() * 8 - 3);
+            all.add(x);
+            parts[rnd.nextInt(parts.length)].add(x);
+        }
+        QuantileSketch merged = new QuantileSketch(64).merge(parts[2]).merge(parts[0]).merge(parts[1]);
+        QuantileSketch nested = parts[0].copy().merge(parts[1].copy().merge(parts[2]));
+        assertEquals(all.count(), merged.count());
+        for (double q : QS) {
+            assertEquals(all.quantile(q), merged.quantile(q), "q=" + q);
+            assertEquals(all.quantile(q), nested.quantile(q), "q=" + q);
+        }
+    }
+
+    @Test
+    void reportPrintsQuantilesOnlyWhenAsked() {
+        CustomerCtx ctx = new CustomerCtx();
+        ctx.country = "France";
+        ctx.city = "Lille";
+        ctx.loyalty = 4;
+        List<DataOnly> guests = List.of(guest("u1", "SUITE", 300), guest("u2", "DELUXE", 150));
+
+        Manager plain = new Manager();
+        plain.rnd = new Random(1);
+        assertFalse(plain.hugeReport(guests, ctx).contains("price n="));
+
+        Manager asked = new Manager();
+        asked.rnd = new Random(1);
+        asked.priceQuantiles = true;
+        assertTrue(asked.hugeReport(guests, ctx).contains("price n=2 "));
+
+        Manager tiered = new Manager();
+        tiered.rnd = new Random(1);
+        tiered.tiers = PriceTiers.above(300, 700);
+        assertTrue(tiered.hugeReport(guests, ctx).contains("price n=2 "));
+    }
+
+    private static DataOnly guest(String id, String type, double balance) {
+        DataOnly d = new DataOnly();
+        d.id = id;
+        d.name = id;
+        d.city = "Lille";
+        d.country = "France";
+        d.type = type;
+        d.coupon = "";
+        d.level = 3;
+        d.balance = balance;
+        d.tax = 0.2;
+        return d;
+    }
+}
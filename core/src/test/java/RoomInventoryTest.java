@@ -0,0 +1,115 @@
+// File: RoomInventoryTest.java
+// Purpose: Capacity, all-or-nothing stays, the booking horizon and slot reuse of
+// the per-night room ring.
+
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomInventoryTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+
+    private final MovableClock clock = new MovableClock(TODAY.atTime(12, 0).toInstant(ZoneOffset.UTC));
+
+    @Test
+    void reservesUpToCapacityAndReleases() {
+        RoomInventory inv = new RoomInventory(30, clock);
+        inv.setCapacity("DOUBLE", 2);
+        assertTrue(inv.reserve("DOUBLE", TODAY, 3));
+        assertTrue(inv.reserve("DOUBLE", TODAY, 3));
+        assertFalse(inv.reserve("DOUBLE", TODAY.plusDays(2), 1));
+        assertEquals(0, inv.freeRooms("DOUBLE", TODAY.plusDays(1)));
+        assertEquals(2, inv.freeRooms("DOUBLE", TODAY.plusDays(3)));
+
+        inv.release("DOUBLE", TODAY, 3);
+        assertEquals(1, inv.freeRooms("DOUBLE", TODAY.plusDays(1)));
+        assertTrue(inv.isAvailable("DOUBLE", TODAY, 3));
+        assertFalse(inv.reserve("SINGLE", TODAY, 1), "unknown room type");
+    }
+
+    @Test
+    void fullNightGivesBackTheNightsAlreadyTaken() {
+        RoomInventory inv = new RoomInventory(30, clock);
+        inv.setCapacity("SUITE", 1);
+        assertTrue(inv.reserve("SUITE", TODAY.plusDays(3), 1));
+        assertFalse(inv.reserve("SUITE", TODAY, 5));
+        for (int d = 0; d < 3; d++) assertEquals(1, inv.freeRooms("SUITE", TODAY.plusDays(d)));
+        assertEquals(List.of(), inv.availableRoomTypes(TODAY, 5));
+        assertEquals(List.of("SUITE"), inv.availableRoomTypes(TODAY, 3));
+    }
+
+    @Test
+    void staysOutsideTheHorizonAreRejected() {
+        RoomInventory inv = new RoomInventory(7, clock);
+        inv.setCapacity("DOUBLE", 1);
+        assertTrue(inv.reserve("DOUBLE", TODAY.minusDays(1), 7));
+        assertThrows(IllegalArgumentException.class, () -> inv.reserve("DOUBLE", TODAY.minusDays(2), 1));
+        assertThrows(IllegalArgumentException.class, () -> inv.reserve("DOUBLE", TODAY, 7));
+    }
+
+    @Test
+    void passedNightsFreeTheirSlots() {
+        RoomInventory inv = new RoomInventory(7, clock);
+        inv.setCapacity("DOUBLE", 1);
+        assertTrue(inv.reserve("DOUBLE", TODAY.plusDays(5), 1));
+        clock.advance(Duration.ofDays(7));
+        LocalDate sameSlot = TODAY.plusDays(12);
+        assertEquals(1, inv.freeRooms("DOUBLE", sameSlot));
+        assertTrue(inv.reserve("DOUBLE", sameSlot, 1));
+        assertFalse(inv.reserve("DOUBLE", sameSlot, 1));
+    }
+
+    @Test
+    void concurrentReservationsNeverOverbook() throws InterruptedException {
+        RoomInventory inv = new RoomInventory(30, clock);
+        inv.setCapacity("DOUBLE", 50);
+        AtomicInteger won = new AtomicInteger();
+        List<Thread> ts = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int offset = t % 3;
+            ts.add(new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    if (inv.reserve("DOUBLE", TODAY.plusDays(offset), 3)) won.incrementAndGet();
+                }
+            }));
+        }
+        for (Thread t : ts) t.start();
+        for (Thread t : ts) t.join();
+        // every stay covers the third night, so exactly its 50 rooms were won
+        assertEquals(50, won.get());
+        assertEquals(0, inv.freeRooms("DOUBLE", TODAY.plusDays(2)));
+    }
+
+    private static final class MovableClock extends Clock {
+        private Instant now;
+
+        MovableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
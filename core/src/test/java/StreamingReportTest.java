@@ -0,0 +1,115 @@
+// File: StreamingReportTest.java
+// Purpose: Count and time windows of StreamingReport, with late records, quiet
+// periods closed by advanceTo() and timestamps before the epoch.
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingReportTest {
+
+    private static final Pattern TIERS = Pattern.compile("hi=(\\d+) mid=(\\d+) lo=(\\d+)");
+
+    // start, end and record count of one emitted window
+    private record Win(long start, long end, int records) {
+    }
+
+    private final List<Win> windows = new ArrayList<>();
+
+    @Test
+    void countWindowsTumbleAndSlide() {
+        StreamingReport tumbling = report(StreamingReport.Window.tumbling(4));
+        tumbling.consume(records(0, 1, 2, 3, 4, 5, 6, 7, 8, 9).iterator());
+        assertEquals(List.of(new Win(0, 4, 4), new Win(4, 8, 4), new Win(8, 10, 2)), windows);
+
+        windows.clear();
+        StreamingReport sliding = report(StreamingReport.Window.sliding(4, 2));
+        sliding.consume(records(0, 1, 2, 3, 4, 5, 6).iterator());
+        assertEquals(List.of(new Win(0, 2, 2), new Win(0, 4, 4), new Win(2, 6, 4), new Win(4, 7, 3)), windows);
+    }
+
+    @Test
+    void tumblingTimeWindowKeepsLateRecordsOutOfClosedPanes() {
+        StreamingReport s = report(StreamingReport.Window.tumbling(Duration.ofMillis(10)));
+        for (DataOnly r : records(1, 5, 12)) s.accept(r);
+        s.advanceTo(25); // closes pane 1 and reports it
+        assertEquals(List.of(new Win(0, 10, 2), new Win(10, 20, 1)), windows);
+
+        for (DataOnly r : records(3, 14)) s.accept(r); // both panes already reported
+        s.accept(records(27).get(0));
+        s.close();
+        assertEquals(List.of(new Win(0, 10, 2), new Win(10, 20, 1), new Win(20, 30, 3)), windows);
+        assertEquals(6, total());
+    }
+
+    @Test
+    void slidingTimeWindowNeverRewritesAClosedPane() {
+        StreamingReport s = report(StreamingReport.Window.sliding(Duration.ofMillis(20),
+                Duration.ofMillis(10)));
+        for (DataOnly r : records(0, 1, 10, 11, 12)) s.accept(r);
+        s.advanceTo(20);
+        assertEquals(List.of(new Win(-10, 10, 2), new Win(0, 20, 5)), windows);
+
+        s.accept(records(2).get(0)); // pane 0 is closed: goes to pane 2
+        s.accept(records(25).get(0));
+        s.close();
+        assertEquals(List.of(new Win(-10, 10, 2), new Win(0, 20, 5), new Win(10, 30, 5)), windows);
+    }
+
+    @Test
+    void lateRecordAfterAdvanceJoinsTheOpenPane() {
+        StreamingReport s = report(StreamingReport.Window.tumbling(Duration.ofMillis(10)));
+        for (DataOnly r : records(11, 3)) s.accept(r); // pane 1 still open
+        s.advanceTo(15);
+        assertEquals(List.of(), windows);
+        s.advanceTo(20);
+        assertEquals(List.of(new Win(10, 20, 2)), windows);
+    }
+
+    @Test
+    void timestampsBeforeTheEpochGetTheirOwnPanes() {
+        StreamingReport s = report(StreamingReport.Window.tumbling(Duration.ofMillis(10)));
+        for (DataOnly r : records(-15, -5, -1, 4)) s.accept(r);
+        s.close();
+        assertEquals(List.of(new Win(-20, -10, 1), new Win(-10, 0, 2), new Win(0, 10, 1)), windows);
+    }
+
+    private StreamingReport report(StreamingReport.Window w) {
+        Manager m = new Manager();
+        m.rnd = new Random(1);
+        CustomerCtx ctx = new CustomerCtx();
+        ctx.country = "France";
+        ctx.city = "Lille";
+        return new StreamingReport(m, ctx, w, (start, end, report) -> {
+            Matcher t = TIERS.matcher(report);
+            assertTrue(t.find(), report);
+            int n = Integer.parseInt(t.group(1)) + Integer.parseInt(t.group(2)) + Integer.parseInt(t.group(3));
+            windows.add(new Win(start, end, n));
+        }, r -> Long.parseLong(r.id), 4);
+    }
+
+    private int total() {
+        return windows.stream().mapToInt(Win::records).sum();
+    }
+
+    // One guest per timestamp; the id carries the timestamp.
+    private static List<DataOnly> records(long... times) {
+        return LongStream.of(times).mapToObj(t -> {
+            DataOnly d = new DataOnly();
+            d.id = Long.toString(t);
+            d.type = "DOUBLE";
+            d.balance = 100 + t;
+            d.tax = 0.1;
+            return d;
+        }).collect(Collectors.toList());
+    }
+}